@@ -0,0 +1,60 @@
+package zzpj_rent.reservation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import zzpj_rent.reservation.dtos.request.ReservationRequest;
+import zzpj_rent.reservation.exceptions.InvalidDateRangeException;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.services.ReservationService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Walidacja dat, sprawdzenie dostępności i wycena przy trafieniach w cache mieszkań i najemców
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateReservationBenchmark {
+    private static final long PROPERTY_ID = 1L;
+    private static final long TENANT_ID = 10L;
+
+    @Param({"DAILY", "MONTHLY"})
+    public String rentalType;
+
+    @Param({"1", "1000"})
+    public int confirmedReservations;
+
+    private ReservationService service;
+    private ReservationRequest available;
+    private ReservationRequest conflicting;
+
+    @Setup
+    public void setup() {
+        LocalDate from = LocalDate.now().plusDays(30);
+        service = InMemory.service(
+                InMemory.reservations(InMemory.intervals(PROPERTY_ID, confirmedReservations, from)),
+                InMemory.views(List.of()),
+                InMemory.apartments(rentalType), InMemory.users());
+        available = new ReservationRequest(PROPERTY_ID, TENANT_ID, LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(8));
+        conflicting = new ReservationRequest(PROPERTY_ID, TENANT_ID, from.plusDays(1), from.plusDays(3));
+    }
+
+    @Benchmark
+    public Reservation create() {
+        return service.createReservation(available);
+    }
+
+    @Benchmark
+    public void rejectConflicting(Blackhole blackhole) {
+        try {
+            service.createReservation(conflicting);
+        } catch (InvalidDateRangeException ex) {
+            blackhole.consume(ex);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package zzpj_rent.reservation.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transport Feign pod równoległym obciążeniem, na lokalnym serwerze zwracającym mieszkanie.
+// HttpURLConnection trzyma domyślnie tylko 5 bezczynnych połączeń na host, więc przy 16 wątkach
+// część zapytań otwiera nowe połączenie TCP; pula HttpClient 5 ma 50 połączeń na trasę.
+// Po przebiegu wypisujemy liczbę połączeń przyjętych przez serwer. Na loopbacku nowe połączenie jest
+// prawie darmowe, więc sama przepustowość zaniża zysk z puli względem sieci między serwisami.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class FeignTransportBenchmark {
+    private static final byte[] APARTMENT = ("{\"id\":1,\"price\":250,\"address\":\"Łódź\",\"rooms\":2," +
+            "\"rentalType\":\"DAILY\",\"available\":true,\"ownerId\":99}").getBytes(StandardCharsets.UTF_8);
+    private static final Request.Options OPTIONS = new Request.Options(1, TimeUnit.SECONDS, 2, TimeUnit.SECONDS,
+            true);
+
+    @Param({"urlconnection", "hc5", "jdk"})
+    public String transport;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private HttpServer server;
+    private CloseableHttpClient pooledClient;
+    private Client client;
+    private Request request;
+
+    @Setup
+    public void setup() throws IOException {
+        // Bez TCP_NODELAY serwer z JDK czeka na opóźnione ACK i każdy transport mierzy te same ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/apartments/", exchange -> {
+            // Nowy port klienta oznacza nowe połączenie TCP
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, APARTMENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(APARTMENT);
+            }
+        });
+        server.start();
+
+        client = switch (transport) {
+            case "urlconnection" -> new Client.Default(null, null);
+            case "hc5" -> {
+                pooledClient = HttpClients.custom()
+                        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                .setMaxConnTotal(200)
+                                .setMaxConnPerRoute(50)
+                                .build())
+                        .build();
+                yield new ApacheHttp5Client(pooledClient);
+            }
+            case "jdk" -> new Http2Client(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofSeconds(1))
+                    .build());
+            default -> throw new IllegalArgumentException(transport);
+        };
+        request = Request.create(Request.HttpMethod.GET,
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/api/apartments/1",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s: %d connections for %d requests%n", transport, clientPorts.size(), requests.get());
+        if (pooledClient != null) {
+            pooledClient.close();
+        }
+        server.stop(0);
+    }
+
+    @Benchmark
+    public int getApartment() throws IOException {
+        try (Response response = client.execute(request, OPTIONS); InputStream body = response.body().asInputStream()) {
+            return body.readAllBytes().length;
+        }
+    }
+}
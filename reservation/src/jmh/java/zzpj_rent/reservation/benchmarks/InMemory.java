@@ -0,0 +1,192 @@
+package zzpj_rent.reservation.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import zzpj_rent.reservation.config.ApartmentBatchProperties;
+import zzpj_rent.reservation.config.BatchProperties;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.config.LookupProperties;
+import zzpj_rent.reservation.config.PropertyCacheProperties;
+import zzpj_rent.reservation.config.ResilienceProperties;
+import zzpj_rent.reservation.config.UserCacheProperties;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.dtos.request.UserDTO;
+import zzpj_rent.reservation.microservices.ApartmentClient;
+import zzpj_rent.reservation.microservices.UserClient;
+import zzpj_rent.reservation.model.OutboxEvent;
+import zzpj_rent.reservation.model.Property;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationRow;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.services.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zamienniki klientów Feign i repozytoriów trzymające dane w pamięci,
+ * żeby benchmarki mierzyły tylko kod serwisu. Dane generujemy ze stałego ziarna.
+ */
+final class InMemory {
+    static final long SEED = 42L;
+    static final long OWNER_ID = 99L;
+
+    private InMemory() {
+    }
+
+    static ApartmentClient apartments(String rentalType) {
+        return new ApartmentClient() {
+            @Override
+            public ApartmentDTO getApartmentById(Long id) {
+                return new ApartmentDTO(id, BigDecimal.valueOf(250), "Łódź", 2, rentalType, true,
+                        51.76, 19.45, OWNER_ID, "Owner", BigDecimal.valueOf(4.5), 10, 100L);
+            }
+
+            @Override
+            public List<ApartmentDTO> getApartmentsByIds(List<Long> ids) {
+                return ids.stream().map(this::getApartmentById).toList();
+            }
+        };
+    }
+
+    static UserClient users() {
+        return id -> new UserDTO(id, "user" + id, "user" + id + "@example.com", "Jan", "Kowalski");
+    }
+
+    // Obsługujemy tylko metody wywoływane przez benchmarki; reszta interfejsu JPA rzuca wyjątek
+    static ReservationRepository reservations(List<ReservationInterval> confirmed) {
+        AtomicLong ids = new AtomicLong();
+        return (ReservationRepository) Proxy.newProxyInstance(ReservationRepository.class.getClassLoader(),
+                new Class<?>[]{ReservationRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        Reservation reservation = (Reservation) args[0];
+                        reservation.setId(ids.incrementAndGet());
+                        yield reservation;
+                    }
+                    case "findAllConfirmedIntervals" -> confirmed;
+                    case "findByPropertyIdAndDateRangeOverlap" -> confirmed.stream()
+                            .filter(interval -> interval.propertyId().equals(args[0])
+                                    && !interval.startDate().isAfter((LocalDate) args[2])
+                                    && !interval.endDate().isBefore((LocalDate) args[1]))
+                            .map(interval -> Reservation.builder().id(interval.id())
+                                    .property(Property.builder().id(interval.propertyId()).build())
+                                    .startDate(interval.startDate()).endDate(interval.endDate())
+                                    .status(Reservation.Status.CONFIRMED).build())
+                            .toList();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryReservationRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // Odczyty list z reservation_view; odświeżenia widoku po zapisach nic nie robią
+    static ReservationViewRepository views(List<ReservationRow> rows) {
+        return (ReservationViewRepository) Proxy.newProxyInstance(ReservationViewRepository.class.getClassLoader(),
+                new Class<?>[]{ReservationViewRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findRowsByTenantId", "findRowsByPropertyId" ->
+                            rows.subList(0, Math.min(rows.size(), ((Limit) args[1]).max()));
+                    case "refresh", "deleteRows" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryReservationViewRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // Zapisy do outboxa tylko numerujemy, żeby koszt serializacji zdarzenia był w pomiarze
+    static OutboxEventRepository outbox() {
+        AtomicLong ids = new AtomicLong();
+        return (OutboxEventRepository) Proxy.newProxyInstance(OutboxEventRepository.class.getClassLoader(),
+                new Class<?>[]{OutboxEventRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        OutboxEvent event = (OutboxEvent) args[0];
+                        event.setId(ids.incrementAndGet());
+                        yield event;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryOutboxEventRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static ReservationService service(ReservationRepository repository, ReservationViewRepository views,
+                                      ApartmentClient apartments, UserClient users) {
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex(repository);
+        availabilityIndex.rebuild();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RemoteCalls remoteCalls = new RemoteCalls(new ResilienceProperties(50, 50, Duration.ofSeconds(1), 20, 10,
+                Duration.ofSeconds(30), 3, 20, Duration.ZERO), registry);
+        return new ReservationService(repository, null, availabilityIndex,
+                new PropertyCache(new ApartmentBatcher(apartments, remoteCalls,
+                        new ApartmentBatchProperties(false, 50, Duration.ofMillis(5)), registry),
+                        new PropertyCacheProperties(10_000, Duration.ofHours(1), null, Duration.ofHours(24)), registry),
+                new UserCache(users, new UserCacheProperties(10_000, Duration.ofHours(1), Duration.ofMinutes(1)),
+                        remoteCalls, registry),
+                new ParallelLookups(new LookupProperties(Duration.ofSeconds(5))),
+                null, new PropertyLocks(),
+                new CalendarCache(repository, new CalendarCacheProperties(10_000, Duration.ofHours(1)), registry),
+                null, null,
+                registry, new ReservationOutbox(outbox(), Jackson2ObjectMapperBuilder.json().build()),
+                new TransactionTemplate(new NoTransactions()), views, new BatchProperties(100));
+    }
+
+    private static final class NoTransactions implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    // Nienachodzące się przedziały co 10 dni, zaczynające się od podanej daty
+    static List<ReservationInterval> intervals(long propertyId, int count, LocalDate from) {
+        List<ReservationInterval> intervals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate start = from.plusDays(i * 10L);
+            intervals.add(new ReservationInterval((long) i + 1, propertyId, start, start.plusDays(5)));
+        }
+        return intervals;
+    }
+
+    static List<ReservationRow> rows(int count) {
+        Random random = new Random(SEED);
+        Reservation.Status[] statuses = Reservation.Status.values();
+        LocalDate day = LocalDate.of(2030, 1, 1);
+        LocalDateTime createdAt = LocalDateTime.of(2029, 12, 1, 12, 0);
+        List<ReservationRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate start = day.plusDays(random.nextInt(365));
+            rows.add(new ReservationRow((long) count - i, 1L + random.nextInt(50), 10L,
+                    "Jan", "Kowalski", start, start.plusDays(1 + random.nextInt(14)),
+                    statuses[random.nextInt(statuses.length)],
+                    random.nextBoolean() ? Reservation.Payment.ONE_TIME : Reservation.Payment.MONTHLY,
+                    BigDecimal.valueOf(100 + random.nextInt(5000), 2), createdAt.minusMinutes(i), 0L));
+        }
+        return rows;
+    }
+}
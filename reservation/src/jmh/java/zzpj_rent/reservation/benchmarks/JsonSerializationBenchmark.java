@@ -0,0 +1,54 @@
+package zzpj_rent.reservation.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.ReservationResponse;
+import zzpj_rent.reservation.repository.ReservationRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Serializacja odpowiedzi tym samym ObjectMapperem, który buduje Spring Boot
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<ReservationResponse> reservations;
+    private List<OpinionResponse> opinions;
+
+    @Setup
+    public void setup() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        reservations = InMemory.rows(size).stream().map(ReservationRow::toResponse).toList();
+
+        Random random = new Random(InMemory.SEED);
+        opinions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            opinions.add(new OpinionResponse((long) i, 1 + random.nextInt(5),
+                    "Opinia numer " + i + " o mieszkaniu i właścicielu", "Jan", "Kowalski"));
+        }
+    }
+
+    @Benchmark
+    public byte[] reservations() throws JsonProcessingException {
+        return writer.writeValueAsBytes(reservations);
+    }
+
+    @Benchmark
+    public byte[] opinions() throws JsonProcessingException {
+        return writer.writeValueAsBytes(opinions);
+    }
+}
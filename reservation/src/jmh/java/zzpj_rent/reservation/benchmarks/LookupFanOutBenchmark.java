@@ -0,0 +1,63 @@
+package zzpj_rent.reservation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import zzpj_rent.reservation.config.LookupProperties;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.dtos.request.UserDTO;
+import zzpj_rent.reservation.microservices.ApartmentClient;
+import zzpj_rent.reservation.microservices.UserClient;
+import zzpj_rent.reservation.services.ParallelLookups;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Czas pobrania mieszkania i najemcy przy chybieniu w cache: po kolei i przez ParallelLookups.
+// SampleTime, bo przy równoległych zapytaniach liczą się percentyle, nie tylko średnia
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupFanOutBenchmark {
+
+    @Param({"1", "5"})
+    public int latencyMillis;
+
+    private ParallelLookups parallelLookups;
+    private Function<Long, ApartmentDTO> apartments;
+    private UserClient users;
+
+    @Setup
+    public void setup() {
+        parallelLookups = new ParallelLookups(new LookupProperties(Duration.ofSeconds(5)));
+        ApartmentClient apartmentClient = InMemory.apartments("DAILY");
+        UserClient userClient = InMemory.users();
+        long latency = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        apartments = id -> {
+            LockSupport.parkNanos(latency);
+            return apartmentClient.getApartmentById(id);
+        };
+        users = id -> {
+            LockSupport.parkNanos(latency);
+            return userClient.getUserById(id);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallelLookups.shutdown();
+    }
+
+    @Benchmark
+    public ParallelLookups.Pair<ApartmentDTO, UserDTO> sequential() {
+        return new ParallelLookups.Pair<>(apartments.apply(1L), users.getUserById(10L));
+    }
+
+    @Benchmark
+    public ParallelLookups.Pair<ApartmentDTO, UserDTO> parallel() {
+        return parallelLookups.fetchBoth(() -> apartments.apply(1L), () -> users.getUserById(10L));
+    }
+}
@@ -0,0 +1,100 @@
+package zzpj_rent.reservation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Jedno zapytanie z anty-złączeniem na tle zapytania per mieszkanie. Przedziały potwierdzonych rezerwacji
+// (daterange, GiST) są tylko w Postgresie, więc baza startuje w kontenerze; leży na tej samej maszynie,
+// więc wariant per mieszkanie płaci tu mniej za opóźnienie sieci i wynik jest dla niego optymistyczny.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiAvailabilityBenchmark {
+    private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+    private static final int RESERVATIONS_PER_PROPERTY = 20;
+    private static final String OVERLAP = "SELECT 1 FROM reservation_confirmed_ranges WHERE property_id = ? " +
+            "AND during && daterange(?, ?, '[]') LIMIT 1";
+
+    @Param({"1000", "5000"})
+    public int properties;
+
+    private PostgreSQLContainer<?> postgres;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PropertyAvailabilityRepository repository;
+    private List<Long> propertyIds;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setup() {
+        postgres = new PostgreSQLContainer<>("postgres:15");
+        postgres.start();
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // Ta sama tabela i ograniczenie co w V5__partition_reservations.sql
+        jdbcTemplate.execute("CREATE EXTENSION btree_gist");
+        jdbcTemplate.execute("CREATE TABLE reservation_confirmed_ranges (reservation_id bigint PRIMARY KEY, " +
+                "property_id bigint NOT NULL, during daterange NOT NULL, " +
+                "CONSTRAINT reservations_confirmed_no_overlap EXCLUDE USING gist (property_id WITH =, during WITH &&))");
+
+        // Mniej więcej połowa rezerwacji jest potwierdzona; potwierdzone jednego mieszkania nie nachodzą na siebie
+        Random random = new Random(InMemory.SEED);
+        List<Object[]> rows = new ArrayList<>();
+        propertyIds = new ArrayList<>(properties);
+        long id = 0;
+        for (long propertyId = 1; propertyId <= properties; propertyId++) {
+            propertyIds.add(propertyId);
+            LocalDate startDate = FROM.plusDays(random.nextInt(14));
+            for (int i = 0; i < RESERVATIONS_PER_PROPERTY; i++) {
+                LocalDate endDate = startDate.plusDays(1 + random.nextInt(7));
+                if (random.nextBoolean()) {
+                    rows.add(new Object[]{++id, propertyId, Date.valueOf(startDate), Date.valueOf(endDate)});
+                }
+                startDate = endDate.plusDays(1 + random.nextInt(14));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reservation_confirmed_ranges VALUES (?, ?, daterange(?, ?, '[]'))", rows);
+        jdbcTemplate.execute("ANALYZE reservation_confirmed_ranges");
+
+        repository = new PropertyAvailabilityRepository(jdbcTemplate);
+        start = FROM.plusDays(100);
+        end = start.plusDays(3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<Long> setBased() {
+        return repository.findFreePropertyIds(propertyIds, start, end);
+    }
+
+    @Benchmark
+    public List<Long> perProperty() {
+        List<Long> free = new ArrayList<>();
+        for (Long propertyId : propertyIds) {
+            if (jdbcTemplate.queryForList(OVERLAP, Integer.class, propertyId, start, end).isEmpty()) {
+                free.add(propertyId);
+            }
+        }
+        return free;
+    }
+}
@@ -0,0 +1,66 @@
+package zzpj_rent.reservation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.services.AvailabilityIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Sprawdzenie kolizji w AvailabilityIndex na tle liniowego przejścia po wszystkich przedziałach
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlapDetectionBenchmark {
+    private static final long PROPERTY_ID = 1L;
+    private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+    private static final int QUERIES = 1024;
+
+    @Param({"10", "100", "10000"})
+    public int intervals;
+
+    private AvailabilityIndex index;
+    private List<ReservationInterval> confirmed;
+    private LocalDate[] starts;
+    private int next;
+
+    @Setup
+    public void setup() {
+        confirmed = InMemory.intervals(PROPERTY_ID, intervals, FROM);
+        index = new AvailabilityIndex(InMemory.reservations(confirmed));
+        index.rebuild();
+
+        Random random = new Random(InMemory.SEED);
+        starts = new LocalDate[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = FROM.plusDays(random.nextInt(intervals * 10));
+        }
+    }
+
+    @Benchmark
+    public boolean index() {
+        LocalDate start = nextStart();
+        return index.isAvailable(PROPERTY_ID, start, start.plusDays(3));
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        LocalDate start = nextStart();
+        LocalDate end = start.plusDays(3);
+        for (ReservationInterval interval : confirmed) {
+            if (!interval.startDate().isAfter(end) && !interval.endDate().isBefore(start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private LocalDate nextStart() {
+        return starts[next++ & (QUERIES - 1)];
+    }
+}
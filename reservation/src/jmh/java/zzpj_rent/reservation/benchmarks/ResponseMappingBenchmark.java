@@ -0,0 +1,40 @@
+package zzpj_rent.reservation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import zzpj_rent.reservation.dtos.response.PageResponse;
+import zzpj_rent.reservation.dtos.response.ReservationResponse;
+import zzpj_rent.reservation.services.ReservationService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapowanie wierszy na odpowiedzi i wyliczenie kursora w metodach listujących
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private ReservationService service;
+
+    @Setup
+    public void setup() {
+        service = InMemory.service(InMemory.reservations(List.of()), InMemory.views(InMemory.rows(pageSize + 1)),
+                InMemory.apartments("DAILY"), InMemory.users());
+    }
+
+    @Benchmark
+    public PageResponse<ReservationResponse> tenantPage() {
+        return service.getAllReservationsForTenant(10L, null, pageSize);
+    }
+
+    @Benchmark
+    public PageResponse<ReservationResponse> ownerPage() {
+        return service.getAllReservationsForOwner(1L, InMemory.OWNER_ID, null, pageSize);
+    }
+}
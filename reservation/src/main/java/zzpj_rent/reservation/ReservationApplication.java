@@ -2,10 +2,12 @@ package zzpj_rent.reservation;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan(basePackages = "zzpj_rent.reservation.config")
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = "zzpj_rent.reservation.microservices")
 public class ReservationApplication {
@@ -0,0 +1,18 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Łączenie pobrań mieszkań w paczki. Identyfikatory zebrane w oknie {@code maxDelay} (albo do
+ * {@code maxBatchSize}) idą jednym zapytaniem do {@code GET /api/apartments/batch}. Wyłączone domyślnie,
+ * dopóki Rental-listing-service nie udostępni tego endpointu - wtedy każde ID to osobne zapytanie.
+ */
+@ConfigurationProperties(prefix = "reservation.apartments.batching")
+public record ApartmentBatchProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("50") int maxBatchSize,
+        @DefaultValue("5ms") Duration maxDelay) {
+}
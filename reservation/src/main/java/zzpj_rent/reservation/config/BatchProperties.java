@@ -0,0 +1,12 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Największa paczka przyjmowana przez endpointy wsadowe. Ogranicza liczbę równoległych pobrań
+ * z innych serwisów i rozmiar jednej transakcji.
+ */
+@ConfigurationProperties(prefix = "reservation.batch")
+public record BatchProperties(@DefaultValue("100") int maxSize) {
+}
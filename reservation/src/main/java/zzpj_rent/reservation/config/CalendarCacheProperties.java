@@ -0,0 +1,17 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia cache zajętych dni (jeden wpis na mieszkanie i miesiąc).
+ * Zmiany statusu w tej instancji usuwają wpisy od razu, a {@code timeToLive} ogranicza
+ * nieaktualność po zmianach zrobionych przez inne instancje.
+ */
+@ConfigurationProperties(prefix = "reservation.cache.calendar")
+public record CalendarCacheProperties(
+        @DefaultValue("50000") long maximumSize,
+        @DefaultValue("10m") Duration timeToLive) {
+}
@@ -0,0 +1,21 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia odrzucania rezerwacji, które zbyt długo czekają na decyzję właściciela.
+ * Jedno uruchomienie zmienia najwyżej {@code chunkSize * maxChunksPerRun} wierszy,
+ * a {@code pause} rozkłada zapisy w czasie, żeby nie obciążać bazy w godzinach szczytu.
+ */
+@ConfigurationProperties(prefix = "reservation.expiry")
+public record ExpiryProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("48h") Duration pendingTimeToLive,
+        @DefaultValue("15m") Duration interval,
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("10") int maxChunksPerRun,
+        @DefaultValue("100ms") Duration pause) {
+}
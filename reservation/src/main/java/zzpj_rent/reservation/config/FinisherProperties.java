@@ -0,0 +1,18 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia automatycznego kończenia rezerwacji po dacie końca.
+ * Jedno uruchomienie zmienia najwyżej {@code chunkSize * maxChunksPerRun} wierszy, resztę przejmie kolejne.
+ */
+@ConfigurationProperties(prefix = "reservation.finisher")
+public record FinisherProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5m") Duration interval,
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("20") int maxChunksPerRun) {
+}
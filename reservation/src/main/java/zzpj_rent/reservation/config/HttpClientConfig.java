@@ -0,0 +1,50 @@
+package zzpj_rent.reservation.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Klienci Feign korzystają z puli połączeń Apache HttpClient 5 tworzonej przez Spring Cloud OpenFeign.
+ * Tu dokładamy tylko keep-alive, usuwanie bezczynnych połączeń i metryki puli
+ * ({@code httpcomponents.httpclient.pool.*} z tagiem {@code httpclient=feign}).
+ * HTTP/2 wymaga klienta z JDK: {@code spring.cloud.openfeign.httpclient.hc5.enabled=false}
+ * i {@code spring.cloud.openfeign.http2client.enabled=true}; ten klient nie udostępnia metryk puli.
+ */
+@Configuration
+public class HttpClientConfig {
+    public static final String POOL_NAME = "feign";
+
+    @Bean
+    public HttpClient5FeignConfiguration.HttpClientBuilderCustomizer keepAliveCustomizer(
+            HttpClientProperties properties) {
+        return builder -> builder
+                .setKeepAliveStrategy(keepAliveStrategy(TimeValue.of(properties.keepAlive())))
+                .evictIdleConnections(TimeValue.of(properties.evictIdleAfter()));
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> connectionManager.ifAvailable(manager -> {
+            if (manager instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, POOL_NAME).bindTo(registry);
+            }
+        });
+    }
+
+    // Krótszy z czasów: podanego przez serwer i naszego limitu
+    public static ConnectionKeepAliveStrategy keepAliveStrategy(TimeValue limit) {
+        return (response, context) -> {
+            TimeValue fromServer = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return fromServer.compareTo(limit) < 0 ? fromServer : limit;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Utrzymywanie połączeń w puli klientów Feign. Rozmiar puli, limit na trasę i maksymalny czas życia
+ * połączenia są w {@code spring.cloud.openfeign.httpclient}. {@code keepAlive} ogranicza czas, przez który
+ * bezczynne połączenie może wrócić do użycia, także gdy serwer w nagłówku Keep-Alive poda dłuższy.
+ */
+@ConfigurationProperties(prefix = "reservation.http-client")
+public record HttpClientProperties(
+        @DefaultValue("30s") Duration keepAlive,
+        @DefaultValue("1m") Duration evictIdleAfter) {
+}
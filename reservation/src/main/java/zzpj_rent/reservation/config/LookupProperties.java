@@ -0,0 +1,13 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Wspólny limit czasu na równoległe zapytania do innych serwisów.
+ */
+@ConfigurationProperties(prefix = "reservation.lookups")
+public record LookupProperties(@DefaultValue("5s") Duration timeout) {
+}
@@ -0,0 +1,21 @@
+package zzpj_rent.reservation.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Włącza obsługę {@code @Timed}. Tag {@code exception} ma wartość {@code none} dla sukcesu
+ * albo nazwę rzuconego wyjątku, np. {@code NoPropertyException}.
+ * Zapytania repozytoriów Spring Data i wywołania Feign mierzy actuator
+ * ({@code spring.data.repository.invocations}, {@code http.client.requests}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
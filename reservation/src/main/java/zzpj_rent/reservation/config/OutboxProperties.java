@@ -0,0 +1,20 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia wysyłki zdarzeń z outboxa rezerwacji. {@code publisher} wybiera implementację:
+ * {@code log} zapisuje zdarzenia do loggera {@code reservation.outbox}, a {@code in-process}
+ * przekazuje je słuchaczom Springa. Jedno uruchomienie wysyła najwyżej {@code batchSize * maxBatchesPerRun} zdarzeń.
+ */
+@ConfigurationProperties(prefix = "reservation.outbox")
+public record OutboxProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration interval,
+        @DefaultValue("100") int batchSize,
+        @DefaultValue("50") int maxBatchesPerRun,
+        @DefaultValue("log") String publisher) {
+}
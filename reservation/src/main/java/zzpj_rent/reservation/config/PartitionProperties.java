@@ -0,0 +1,17 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia zakładania miesięcznych partycji rezerwacji. {@code monthsAhead} powinno sięgać tak daleko,
+ * jak daleko w przód można rezerwować; późniejsze terminy trafiają do partycji domyślnej.
+ */
+@ConfigurationProperties(prefix = "reservation.partitions")
+public record PartitionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("12h") Duration interval,
+        @DefaultValue("24") int monthsAhead) {
+}
@@ -0,0 +1,20 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia cache mieszkań pobieranych z Rental-listing-service.
+ * {@code refreshAfter} jest opcjonalne - gdy ustawione, wpis jest odświeżany w tle zanim wygaśnie.
+ * {@code lastKnownTimeToLive} określa jak długo odczyty mogą korzystać z ostatniej znanej wersji mieszkania,
+ * gdy Rental-listing-service nie odpowiada.
+ */
+@ConfigurationProperties(prefix = "reservation.cache.properties")
+public record PropertyCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("5m") Duration timeToLive,
+        Duration refreshAfter,
+        @DefaultValue("24h") Duration lastKnownTimeToLive) {
+}
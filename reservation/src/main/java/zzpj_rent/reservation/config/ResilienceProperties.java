@@ -0,0 +1,24 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia circuit breakera i bulkheadu przed klientami Feign. Każdy klient dostaje własne
+ * instancje z tymi samymi progami. Limity czasu samych zapytań HTTP są w
+ * {@code spring.cloud.openfeign.client.config}.
+ */
+@ConfigurationProperties(prefix = "reservation.resilience")
+public record ResilienceProperties(
+        @DefaultValue("50") float failureRateThreshold,
+        @DefaultValue("50") float slowCallRateThreshold,
+        @DefaultValue("1s") Duration slowCallDuration,
+        @DefaultValue("20") int slidingWindowSize,
+        @DefaultValue("10") int minimumNumberOfCalls,
+        @DefaultValue("30s") Duration waitInOpenState,
+        @DefaultValue("3") int permittedCallsInHalfOpenState,
+        @DefaultValue("20") int maxConcurrentCalls,
+        @DefaultValue("0s") Duration maxWait) {
+}
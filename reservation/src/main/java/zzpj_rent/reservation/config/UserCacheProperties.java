@@ -0,0 +1,17 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia cache użytkowników pobieranych z RENTLYAUTH.
+ * {@code notFoundTimeToLive} określa jak długo pamiętamy, że użytkownik nie istnieje.
+ */
+@ConfigurationProperties(prefix = "reservation.cache.users")
+public record UserCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("5m") Duration timeToLive,
+        @DefaultValue("30s") Duration notFoundTimeToLive) {
+}
@@ -0,0 +1,18 @@
+package zzpj_rent.reservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia odświeżania imion i nazwisk najemców w {@code reservation_view}. Ten serwis nie zapisuje
+ * {@code users_entity}, więc zmiana danych najemcy pojawia się w widoku najpóźniej po {@code interval}.
+ * Jeden fragment obejmuje {@code chunkSize} kolejnych identyfikatorów rezerwacji.
+ */
+@ConfigurationProperties(prefix = "reservation.view-names")
+public record ViewNamesProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration interval,
+        @DefaultValue("5000") int chunkSize) {
+}
@@ -0,0 +1,87 @@
+package zzpj_rent.reservation.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import zzpj_rent.reservation.dtos.response.SuccessMessage;
+import zzpj_rent.reservation.services.CalendarCache;
+import zzpj_rent.reservation.services.PropertyCache;
+import zzpj_rent.reservation.services.UserCache;
+
+@RestController
+@RequestMapping("/api/rent/cache")
+@Tag(name = "Cache API", description = "Endpoints for invalidating cached data from other services")
+public class CacheController {
+    private final PropertyCache propertyCache;
+    private final UserCache userCache;
+    private final CalendarCache calendarCache;
+
+    public CacheController(PropertyCache propertyCache, UserCache userCache, CalendarCache calendarCache) {
+        this.propertyCache = propertyCache;
+        this.userCache = userCache;
+        this.calendarCache = calendarCache;
+    }
+
+    @Operation(summary = "Evict a cached property")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie usunięto mieszkanie z cache",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class)))
+    })
+    @DeleteMapping("/properties/{id}")
+    public ResponseEntity<SuccessMessage> evictProperty(
+            @Parameter(description = "Property ID") @PathVariable Long id) {
+        propertyCache.invalidate(id);
+        return ResponseEntity.ok(new SuccessMessage("Property " + id + " evicted from cache"));
+    }
+
+    @Operation(summary = "Evict all cached properties")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie wyczyszczono cache mieszkań",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class)))
+    })
+    @DeleteMapping("/properties")
+    public ResponseEntity<SuccessMessage> evictAllProperties() {
+        propertyCache.invalidateAll();
+        return ResponseEntity.ok(new SuccessMessage("Property cache cleared"));
+    }
+
+    @Operation(summary = "Evict a cached user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie usunięto użytkownika z cache",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class)))
+    })
+    @DeleteMapping("/users/{id}")
+    public ResponseEntity<SuccessMessage> evictUser(
+            @Parameter(description = "User ID") @PathVariable Long id) {
+        userCache.invalidate(id);
+        return ResponseEntity.ok(new SuccessMessage("User " + id + " evicted from cache"));
+    }
+
+    @Operation(summary = "Evict all cached users")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie wyczyszczono cache użytkowników",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class)))
+    })
+    @DeleteMapping("/users")
+    public ResponseEntity<SuccessMessage> evictAllUsers() {
+        userCache.invalidateAll();
+        return ResponseEntity.ok(new SuccessMessage("User cache cleared"));
+    }
+
+    @Operation(summary = "Evict all cached calendars")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie wyczyszczono cache kalendarzy",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class)))
+    })
+    @DeleteMapping("/calendar")
+    public ResponseEntity<SuccessMessage> evictAllCalendars() {
+        calendarCache.invalidateAll();
+        return ResponseEntity.ok(new SuccessMessage("Calendar cache cleared"));
+    }
+}
@@ -7,26 +7,39 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import zzpj_rent.reservation.dtos.request.AvailabilityRequest;
 import zzpj_rent.reservation.dtos.request.OpinionRequest;
 import zzpj_rent.reservation.dtos.request.ReservationRequest;
+import zzpj_rent.reservation.dtos.request.StatusBatchRequest;
 import zzpj_rent.reservation.dtos.request.UpdateReservationRequest;
+import zzpj_rent.reservation.dtos.response.BatchItemResponse;
+import zzpj_rent.reservation.dtos.response.CalendarResponse;
 import zzpj_rent.reservation.dtos.response.ErrorMessage;
 import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.PageResponse;
+import zzpj_rent.reservation.dtos.response.RatingSummaryResponse;
 import zzpj_rent.reservation.dtos.response.ReservationResponse;
 import zzpj_rent.reservation.dtos.response.SuccessMessage;
+import zzpj_rent.reservation.exceptions.PreconditionFailedException;
 import zzpj_rent.reservation.model.Opinion;
 import zzpj_rent.reservation.model.Reservation;
 import zzpj_rent.reservation.services.ReservationService;
 
+import java.time.LocalDate;
 import java.util.List;
 
-@CrossOrigin(origins = "http://localhost:3000", maxAge = 3600)
+@CrossOrigin(origins = "http://localhost:3000", maxAge = 3600, exposedHeaders = {ReservationController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 @RestController
 @RequestMapping("/api/rent")
 @Tag(name = "Reservation API", description = "Endpoints for managing reservations")
 public class ReservationController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String DEFAULT_PAGE_SIZE = "50";
+
     private final ReservationService reservationService;
 
     public ReservationController(ReservationService reservationService) {
@@ -49,6 +62,20 @@ public class ReservationController {
         return ResponseEntity.ok(reservationService.createReservation(request));
     }
 
+    @Operation(summary = "Create many reservations at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Wynik dla każdej rezerwacji z paczki",
+                    content = @Content(schema = @Schema(implementation = BatchItemResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Za duża paczka",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "500", description = "Błąd serwera",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @PostMapping("/create/batch")
+    public ResponseEntity<List<BatchItemResponse>> reserveBatch(@RequestBody List<ReservationRequest> requests) {
+        return ResponseEntity.ok(reservationService.createReservations(requests));
+    }
+
     @Operation(summary = "Get all reservations for a tenant")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Pomyślnie pobrano listę rezerwacji",
@@ -59,13 +86,15 @@ public class ReservationController {
     @GetMapping("/reservations/tenant/all")
     public ResponseEntity<List<ReservationResponse>> getAllReservationsForTenant(
             @Parameter(description = "ID of the tenant") @RequestParam Long tenantId,
-            @Parameter(description = "Status of the reservation") @RequestParam(required = false) Reservation.Status status) {
+            @Parameter(description = "Status of the reservation") @RequestParam(required = false) Reservation.Status status,
+            @Parameter(description = "Cursor from the X-Next-Cursor header") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<ReservationResponse> reservations = (status == null)
-                ? reservationService.getAllReservationsForTenant(tenantId)
-                : reservationService.getReservationsForTenantByStatus(tenantId, status);
+        PageResponse<ReservationResponse> page = (status == null)
+                ? reservationService.getAllReservationsForTenant(tenantId, cursor, limit)
+                : reservationService.getReservationsForTenantByStatus(tenantId, status, cursor, limit);
 
-        return ResponseEntity.ok(reservations);
+        return pageOf(page);
     }
 
     @Operation(summary = "Get a reservation by ID for a tenant")
@@ -74,12 +103,14 @@ public class ReservationController {
                     content = @Content(schema = @Schema(implementation = ReservationResponse.class))),
             @ApiResponse(responseCode = "404", description = "Nie znaleziono zasobu",
                     content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "304", description = "Rezerwacja nie zmieniła się od ostatniego pobrania",
+                    content = @Content),
     })
     @GetMapping("/reservations/{id}/tenant/{tenantId}")
     public ResponseEntity<ReservationResponse> getReservationByIdTenant(
             @Parameter(description = "Reservation ID") @PathVariable Long id,
             @Parameter(description = "Tenant ID") @PathVariable Long tenantId) {
-        return ResponseEntity.ok(reservationService.getReservationByIdForTenant(id, tenantId));
+        return withETag(reservationService.getReservationByIdForTenant(id, tenantId));
     }
 
     @Operation(summary = "Update reservation status")
@@ -89,13 +120,32 @@ public class ReservationController {
             @ApiResponse(responseCode = "400", description = "Niepoprawny status",
                     content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
             @ApiResponse(responseCode = "404", description = "Nie znaleziono rezerwacji",
-                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "412", description = "Rezerwacja została zmieniona od ostatniego pobrania",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
     })
     @PatchMapping("/status/{id}")
     public ResponseEntity<SuccessMessage> updateReservationStatus(
             @Parameter(description = "Reservation ID") @PathVariable Long id,
-            @Parameter(description = "New status") @RequestParam Reservation.Status status) {
-        return ResponseEntity.ok(new SuccessMessage(reservationService.updateReservationStatus(id, status)));
+            @Parameter(description = "New status") @RequestParam Reservation.Status status,
+            @Parameter(description = "ETag from the last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch) {
+        return ResponseEntity.ok(new SuccessMessage(
+                reservationService.updateReservationStatus(id, status, expectedVersion(ifMatch))));
+    }
+
+    @Operation(summary = "Update status of many reservations at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Wynik dla każdej rezerwacji z paczki",
+                    content = @Content(schema = @Schema(implementation = BatchItemResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Niepoprawny status",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "500", description = "Błąd serwera",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @PatchMapping("/status/batch")
+    public ResponseEntity<List<BatchItemResponse>> updateReservationStatuses(@RequestBody StatusBatchRequest request) {
+        return ResponseEntity.ok(reservationService.updateReservationStatuses(request));
     }
 
     @Operation(summary = "Delete a reservation for a tenant")
@@ -105,13 +155,18 @@ public class ReservationController {
             @ApiResponse(responseCode = "400", description = "Nie znaleziono rezerwacji",
                     content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
             @ApiResponse(responseCode = "404", description = "Nie można usunąć rezerwacji",
-                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "412", description = "Rezerwacja została zmieniona od ostatniego pobrania",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
     })
     @DeleteMapping("/delete/{id}/tenant/{tenantId}")
     public ResponseEntity<SuccessMessage> deleteReservation(
             @Parameter(description = "Reservation ID") @PathVariable Long id,
-            @Parameter(description = "Tenant ID") @PathVariable Long tenantId) {
-        return ResponseEntity.ok(new SuccessMessage(reservationService.deleteReservation(id, tenantId)));
+            @Parameter(description = "Tenant ID") @PathVariable Long tenantId,
+            @Parameter(description = "ETag from the last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch) {
+        return ResponseEntity.ok(new SuccessMessage(
+                reservationService.deleteReservation(id, tenantId, expectedVersion(ifMatch))));
     }
 
     @Operation(summary = "Update a reservation for a tenant")
@@ -121,14 +176,19 @@ public class ReservationController {
             @ApiResponse(responseCode = "400", description = "Niepoprawne dane",
                     content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
             @ApiResponse(responseCode = "404", description = "Nie znaleziono rezerwacji",
-                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "412", description = "Rezerwacja została zmieniona od ostatniego pobrania",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
     })
     @PatchMapping("update/{id}/tenant/{tenantId}")
     public ResponseEntity<SuccessMessage> updateReservation(
             @Parameter(description = "Reservation ID") @PathVariable Long id,
             @Parameter(description = "Tenant ID") @PathVariable Long tenantId,
-            @RequestBody UpdateReservationRequest request) {
-        return ResponseEntity.ok(new SuccessMessage(reservationService.updateReservation(id, tenantId, request)));
+            @RequestBody UpdateReservationRequest request,
+            @Parameter(description = "ETag from the last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch) {
+        return ResponseEntity.ok(new SuccessMessage(
+                reservationService.updateReservation(id, tenantId, request, expectedVersion(ifMatch))));
     }
 
     @Operation(summary = "Get all reservations for an owner")
@@ -143,9 +203,11 @@ public class ReservationController {
     @GetMapping("/reservations/owner/all")
     public ResponseEntity<List<ReservationResponse>> getAllReservationsForOwner(
             @Parameter(description = "Property ID") @RequestParam Long propertyId,
-            @Parameter(description = "Owner ID") @RequestParam Long ownerId)
+            @Parameter(description = "Owner ID") @RequestParam Long ownerId,
+            @Parameter(description = "Cursor from the X-Next-Cursor header") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit)
     {
-        return ResponseEntity.ok(reservationService.getAllReservationsForOwner(propertyId, ownerId));
+        return pageOf(reservationService.getAllReservationsForOwner(propertyId, ownerId, cursor, limit));
     }
 
     @Operation(summary = "Get a reservation by ID for an owner")
@@ -157,13 +219,44 @@ public class ReservationController {
             @ApiResponse(responseCode = "404", description = "Nie znaleziono zasobu",
                     content = @Content(schema = @Schema(implementation = ErrorMessage.class))),
             @ApiResponse(responseCode = "500", description = "Błąd serwera",
-                    content = @Content)
+                    content = @Content),
+            @ApiResponse(responseCode = "304", description = "Rezerwacja nie zmieniła się od ostatniego pobrania",
+                    content = @Content),
     })
     @GetMapping("/reservations/{id}/owner/{ownerId}")
     public ResponseEntity<ReservationResponse> getReservationByIdOwner(
             @Parameter(description = "Reservation ID") @PathVariable Long id,
             @Parameter(description = "Owner ID") @PathVariable Long ownerId) {
-        return ResponseEntity.ok(reservationService.getReservationByIdForOwner(id, ownerId));
+        return withETag(reservationService.getReservationByIdForOwner(id, ownerId));
+    }
+
+    @Operation(summary = "Get which of the given properties are free for a date range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "ID wolnych mieszkań w kolejności z zapytania",
+                    content = @Content(schema = @Schema(implementation = Long.class))),
+            @ApiResponse(responseCode = "400", description = "Niepoprawny zakres dat",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @PostMapping("/properties/availability")
+    public ResponseEntity<List<Long>> getAvailableProperties(@RequestBody AvailabilityRequest request) {
+        return ResponseEntity.ok(reservationService.getAvailableProperties(request));
+    }
+
+    @Operation(summary = "Get booked days of a property")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie pobrano zajęte dni",
+                    content = @Content(schema = @Schema(implementation = CalendarResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Niepoprawny zakres dat",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @GetMapping("/properties/{propertyId}/calendar")
+    public ResponseEntity<CalendarResponse> getBookedDays(
+            @Parameter(description = "Property ID") @PathVariable Long propertyId,
+            @Parameter(description = "First day of the window") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the window") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reservationService.getBookedDays(propertyId, from, to));
     }
 
     @Operation(summary = "Add an opinion to a reservation")
@@ -192,8 +285,45 @@ public class ReservationController {
     })
     @GetMapping("/opinion/{userId}")
     public ResponseEntity<List<OpinionResponse>> getAllOpinionsByUser(
+            @Parameter(description = "UserId") @PathVariable Long userId,
+            @Parameter(description = "Cursor from the X-Next-Cursor header") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return pageOf(reservationService.getAllOpinionsByUser(userId, cursor, limit));
+    }
+
+    @Operation(summary = "Get rating summary for user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie pobrano podsumowanie ocen",
+                    content = @Content(schema = @Schema(implementation = RatingSummaryResponse.class)))
+    })
+    @GetMapping("/opinion/{userId}/summary")
+    public ResponseEntity<RatingSummaryResponse> getRatingSummary(
             @Parameter(description = "UserId") @PathVariable Long userId) {
-        return ResponseEntity.ok(reservationService.getAllOpinionsByUser(userId));
+        return ResponseEntity.ok(reservationService.getRatingSummary(userId));
+    }
+
+    @Operation(summary = "Rebuild rating summaries from opinions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie przeliczono podsumowania ocen",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class))),
+            @ApiResponse(responseCode = "500", description = "Błąd serwera",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @PostMapping("/opinion/summary/rebuild")
+    public ResponseEntity<SuccessMessage> rebuildRatingSummaries() {
+        return ResponseEntity.ok(new SuccessMessage(reservationService.rebuildRatingSummaries()));
+    }
+
+    @Operation(summary = "Rebuild reservation read model from reservations")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pomyślnie przebudowano widok rezerwacji",
+                    content = @Content(schema = @Schema(implementation = SuccessMessage.class))),
+            @ApiResponse(responseCode = "500", description = "Błąd serwera",
+                    content = @Content(schema = @Schema(implementation = ErrorMessage.class)))
+    })
+    @PostMapping("/reservations/view/rebuild")
+    public ResponseEntity<SuccessMessage> rebuildReservationView() {
+        return ResponseEntity.ok(new SuccessMessage(reservationService.rebuildReservationView()));
     }
 
     @Operation(summary = "Delete opinion")
@@ -212,4 +342,40 @@ public class ReservationController {
         return ResponseEntity.ok(new SuccessMessage(reservationService.deleteOpinion(userId, opinionId)));
     }
 
+    // Dla GET z pasującym If-None-Match Spring odpowiada 304 na podstawie ETag, bez serializacji ciała.
+    // Sama wersja nie wystarcza, bo TenantNameSync zmienia dane najemcy bez jej podbijania; stąd skrót całej odpowiedzi
+    private static ResponseEntity<ReservationResponse> withETag(ReservationResponse reservation) {
+        return ResponseEntity.ok()
+                .eTag(reservation.getVersion() + "-" + Integer.toHexString(reservation.hashCode()))
+                .body(reservation);
+    }
+
+    // If-Match: "3-1f2e", W/"3-1f2e" albo samo "3"; liczy się tylko wersja przed myślnikiem.
+    // Brak nagłówka lub * oznacza zapis bez sprawdzania wersji
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            tag = tag.replace("\"", "");
+            int separator = tag.indexOf('-');
+            return Long.parseLong(separator < 0 ? tag : tag.substring(0, separator));
+        } catch (NumberFormatException _) {
+            throw new PreconditionFailedException();
+        }
+    }
+
+    // Ciało odpowiedzi pozostaje listą, kursor następnej strony idzie w nagłówku
+    private static <T> ResponseEntity<List<T>> pageOf(PageResponse<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
 }
@@ -0,0 +1,17 @@
+package zzpj_rent.reservation.dtos.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityRequest {
+    private List<Long> propertyIds;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -0,0 +1,16 @@
+package zzpj_rent.reservation.dtos.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import zzpj_rent.reservation.model.Reservation;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatusBatchRequest {
+    private List<Long> ids;
+    private Reservation.Status status;
+}
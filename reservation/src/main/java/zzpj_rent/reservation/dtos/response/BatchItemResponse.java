@@ -0,0 +1,35 @@
+package zzpj_rent.reservation.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import zzpj_rent.reservation.exceptions.ReservationException;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchItemResponse {
+    private int index;
+    private Long id;
+    private HttpStatus status;
+    private String message;
+
+    public static BatchItemResponse created(int index, Long id) {
+        return new BatchItemResponse(index, id, HttpStatus.CREATED, "Reservation created");
+    }
+
+    public static BatchItemResponse failed(int index, ReservationException ex) {
+        return failed(index, null, ex);
+    }
+
+    public static BatchItemResponse updated(int index, Long id, String message) {
+        return new BatchItemResponse(index, id, HttpStatus.OK, message);
+    }
+
+    public static BatchItemResponse failed(int index, Long id, ReservationException ex) {
+        return new BatchItemResponse(index, id, ex.getStatus(), ex.getMessage());
+    }
+}
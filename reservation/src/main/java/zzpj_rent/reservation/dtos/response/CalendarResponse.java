@@ -0,0 +1,20 @@
+package zzpj_rent.reservation.dtos.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CalendarResponse {
+    private Long propertyId;
+    private LocalDate from;
+    private LocalDate to;
+    @Schema(description = "Base64 bitset of booked days: bit i (least significant bit first in each byte) " +
+            "is day from + i. Missing trailing bytes mean free days.")
+    private String bookedDays;
+}
@@ -0,0 +1,32 @@
+package zzpj_rent.reservation.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import zzpj_rent.reservation.model.UserRatingSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingSummaryResponse {
+    private Long userId;
+    private long count;
+    private BigDecimal average;
+    // Liczba opinii z oceną równą indeksowi (0-5)
+    private List<Long> histogram;
+
+    public static RatingSummaryResponse of(UserRatingSummary summary) {
+        BigDecimal average = summary.getRatingCount() == 0 ? null
+                : BigDecimal.valueOf(summary.getRatingSum())
+                .divide(BigDecimal.valueOf(summary.getRatingCount()), 2, RoundingMode.HALF_UP);
+        return new RatingSummaryResponse(summary.getUserId(), summary.getRatingCount(), average,
+                List.of(summary.getRating0(), summary.getRating1(), summary.getRating2(),
+                        summary.getRating3(), summary.getRating4(), summary.getRating5()));
+    }
+}
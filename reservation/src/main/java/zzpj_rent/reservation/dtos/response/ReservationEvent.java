@@ -0,0 +1,18 @@
+package zzpj_rent.reservation.dtos.response;
+
+import zzpj_rent.reservation.model.Reservation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Stan rezerwacji po zmianie, wysyłany w zdarzeniach z outboxa. Zapytania w ReservationBatchRepository
+// budują ten sam JSON po stronie bazy, więc nazwy pól trzeba zmieniać w obu miejscach.
+public record ReservationEvent(Long reservationId, Long propertyId, Long tenantId, Reservation.Status status,
+                               LocalDate startDate, LocalDate endDate, BigDecimal price, long version) {
+
+    public static ReservationEvent of(Reservation reservation) {
+        return new ReservationEvent(reservation.getId(), reservation.getProperty().getId(),
+                reservation.getTenant().getId(), reservation.getStatus(), reservation.getStartDate(),
+                reservation.getEndDate(), reservation.getPrice(), reservation.getVersion());
+    }
+}
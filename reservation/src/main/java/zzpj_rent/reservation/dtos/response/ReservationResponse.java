@@ -23,4 +23,5 @@ public class ReservationResponse {
     private String status;
     private String payment;
     private BigDecimal price;
+    private Long version;
 }
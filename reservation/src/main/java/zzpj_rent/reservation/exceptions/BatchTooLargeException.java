@@ -0,0 +1,9 @@
+package zzpj_rent.reservation.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public final class BatchTooLargeException extends ReservationException {
+    public BatchTooLargeException(int maxSize) {
+        super(HttpStatus.BAD_REQUEST, "Batch cannot contain more than " + maxSize + " items");
+    }
+}
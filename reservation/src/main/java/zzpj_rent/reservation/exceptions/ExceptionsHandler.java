@@ -1,10 +1,14 @@
 package zzpj_rent.reservation.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import zzpj_rent.reservation.dtos.response.ErrorMessage;
 
+import java.time.LocalDateTime;
+
 @RestControllerAdvice
 public class ExceptionsHandler {
 
@@ -17,4 +21,15 @@ public class ExceptionsHandler {
         );
         return new ResponseEntity<>(errorResponse, ex.getStatus());
     }
+
+    // Zapis przegrał z równoległą zmianą tej samej rezerwacji (kolumna version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorMessage> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorMessage errorResponse = new ErrorMessage(
+                HttpStatus.CONFLICT,
+                "Reservation has been modified concurrently, fetch it again",
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
 }
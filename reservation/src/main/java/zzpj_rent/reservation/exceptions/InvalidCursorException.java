@@ -0,0 +1,9 @@
+package zzpj_rent.reservation.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public final class InvalidCursorException extends ReservationException {
+    public InvalidCursorException() {
+        super(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+    }
+}
@@ -0,0 +1,9 @@
+package zzpj_rent.reservation.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public final class PreconditionFailedException extends ReservationException {
+    public PreconditionFailedException() {
+        super(HttpStatus.PRECONDITION_FAILED, "Reservation has been modified, fetch it again");
+    }
+}
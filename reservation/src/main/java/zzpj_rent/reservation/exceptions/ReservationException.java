@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 
 public sealed class ReservationException extends RuntimeException permits InvalidDateRangeException,
     NoPropertyException, ReservationStatusException, NoReservationException, NoTenantException,
-    OwnerException, NotSpecifiedException, InvalidRatingException, NoOpinionException {
+    OwnerException, NotSpecifiedException, InvalidRatingException, NoOpinionException, InvalidCursorException,
+    PreconditionFailedException, ServiceUnavailableException, BatchTooLargeException {
     @Getter
     private final HttpStatus status;
     private final String message;
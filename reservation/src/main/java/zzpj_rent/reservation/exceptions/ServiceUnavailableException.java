@@ -0,0 +1,9 @@
+package zzpj_rent.reservation.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public final class ServiceUnavailableException extends ReservationException {
+    public ServiceUnavailableException(String service) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, service + " is unavailable, try again later");
+    }
+}
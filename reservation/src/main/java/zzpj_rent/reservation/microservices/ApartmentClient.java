@@ -3,12 +3,19 @@ package zzpj_rent.reservation.microservices;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import zzpj_rent.reservation.dtos.request.ApartmentDTO;
 
+import java.util.List;
+
 @FeignClient(name = "Rental-listing-service")  // używaj "application.name" z apartment-service
 public interface ApartmentClient {
 
     @GetMapping("/api/apartments/{id}")
     ApartmentDTO getApartmentById(@PathVariable Long id);
 
-}
\ No newline at end of file
+    // Zwraca tylko istniejące mieszkania; brakujące ID są pomijane
+    @GetMapping("/api/apartments/batch")
+    List<ApartmentDTO> getApartmentsByIds(@RequestParam("ids") List<Long> ids);
+
+}
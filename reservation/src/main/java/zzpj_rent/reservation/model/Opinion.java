@@ -30,5 +30,6 @@ public class Opinion {
     @JsonIgnore
     private User user;
     @Column(nullable = false)
+    @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 }
@@ -3,6 +3,7 @@ package zzpj_rent.reservation.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -15,7 +16,6 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class Reservation {
-
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,6 +31,9 @@ public class Reservation {
     @JsonIgnore
     private User tenant;
 
+    // Tabela jest partycjonowana miesięcznie po start_date; Hibernate dokłada ją do UPDATE i DELETE po id
+    @PartitionKey
+    @Column(nullable = false)
     private LocalDate startDate;
     private LocalDate endDate;
 
@@ -46,6 +49,11 @@ public class Reservation {
 
     private BigDecimal price;
 
+    // Zwiększana przy każdym zapisie; udostępniana klientom jako ETag
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
+
 
     public enum Payment {
         MONTHLY,
@@ -0,0 +1,56 @@
+package zzpj_rent.reservation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Zdenormalizowana kopia rezerwacji z danymi najemcy - dokładnie pola ReservationResponse i createdAt do kursora.
+ * Odczyty list i pojedynczych rezerwacji idą tylko do tej tabeli. Wiersze zapisuje
+ * {@link zzpj_rent.reservation.repository.ReservationViewRepository} w transakcji zmieniającej rezerwację.
+ */
+@Entity
+@Immutable
+@Table(name = "reservation_view")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationView {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long propertyId;
+
+    @Column(nullable = false)
+    private Long tenantId;
+
+    private String tenantName;
+    private String tenantSurname;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Reservation.Status status;
+
+    @Enumerated(EnumType.STRING)
+    private Reservation.Payment payment;
+
+    private BigDecimal price;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private long version;
+}
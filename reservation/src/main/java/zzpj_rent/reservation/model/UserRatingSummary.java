@@ -0,0 +1,35 @@
+package zzpj_rent.reservation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Suma, liczba i rozkład ocen opinii o użytkowniku, utrzymywane przy każdym dodaniu i usunięciu opinii.
+ */
+@Entity
+@Table(name = "user_rating_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserRatingSummary {
+    @Id
+    private Long userId;
+    private long ratingSum;
+    private long ratingCount;
+    @Column(name = "rating_0")
+    private long rating0;
+    @Column(name = "rating_1")
+    private long rating1;
+    @Column(name = "rating_2")
+    private long rating2;
+    @Column(name = "rating_3")
+    private long rating3;
+    @Column(name = "rating_4")
+    private long rating4;
+    @Column(name = "rating_5")
+    private long rating5;
+}
@@ -0,0 +1,16 @@
+package zzpj_rent.reservation.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Przedziały potwierdzonych rezerwacji prosto z {@code reservation_confirmed_ranges}, bez zaglądania do partycji
+ * {@code reservations}. Część {@link ReservationRepository}, zaimplementowana w {@link ConfirmedIntervalQueriesImpl}.
+ */
+public interface ConfirmedIntervalQueries {
+
+    // Potwierdzone rezerwacje, które mogą jeszcze trwać
+    List<ReservationInterval> findAllConfirmedIntervals();
+
+    List<ReservationInterval> findConfirmedIntervals(Long propertyId, LocalDate from, LocalDate to);
+}
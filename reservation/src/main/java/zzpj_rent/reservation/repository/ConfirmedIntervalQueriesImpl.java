@@ -0,0 +1,37 @@
+package zzpj_rent.reservation.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Zapytania przez JdbcTemplate, bo natywne zapytanie JPA zwraca daty jako {@link java.sql.Date}
+ * i nie da się nim zbudować {@link ReservationInterval}. Daterange '[]' jest przechowywany jako
+ * '[start, koniec + 1)', więc koniec to {@code upper(during) - 1}; szukane przedziały korzystają z indeksu GiST
+ * ograniczenia {@link ConfirmedOverlapConstraint#NAME}.
+ */
+@AllArgsConstructor
+class ConfirmedIntervalQueriesImpl implements ConfirmedIntervalQueries {
+    private static final String SELECT_INTERVALS = "SELECT reservation_id, property_id, lower(during), " +
+            "upper(during) - 1 FROM reservation_confirmed_ranges ";
+
+    private static final RowMapper<ReservationInterval> INTERVAL = (rs, _) -> new ReservationInterval(
+            rs.getLong(1), rs.getLong(2), rs.getObject(3, LocalDate.class), rs.getObject(4, LocalDate.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ReservationInterval> findAllConfirmedIntervals() {
+        return jdbcTemplate.query(SELECT_INTERVALS + "WHERE upper_inf(during) OR upper(during) > ?",
+                INTERVAL, LocalDate.now());
+    }
+
+    @Override
+    public List<ReservationInterval> findConfirmedIntervals(Long propertyId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SELECT_INTERVALS + "WHERE property_id = ? AND during && daterange(?, ?, '[]')",
+                INTERVAL, propertyId, from, to);
+    }
+}
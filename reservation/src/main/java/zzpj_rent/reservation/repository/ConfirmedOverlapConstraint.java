@@ -0,0 +1,26 @@
+package zzpj_rent.reservation.repository;
+
+import org.springframework.dao.DataAccessException;
+
+import java.sql.SQLException;
+
+/**
+ * Ograniczenie wykluczające w Postgresie: dwie potwierdzone rezerwacje tego samego mieszkania
+ * nie mogą mieć nachodzących się dat. Przedział jest domknięty z obu stron, tak jak w
+ * {@link ReservationRepository#findByPropertyIdAndDateRangeOverlap}. Od migracji
+ * {@code V5__partition_reservations.sql} leży na tabeli {@code reservation_confirmed_ranges},
+ * którą wyzwalacz uzupełnia przy każdym zapisie rezerwacji, więc błąd zgłasza ten sam INSERT lub UPDATE.
+ */
+public final class ConfirmedOverlapConstraint {
+    public static final String NAME = "reservations_confirmed_no_overlap";
+
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private ConfirmedOverlapConstraint() {
+    }
+
+    public static boolean isViolation(DataAccessException ex) {
+        return ex.getMostSpecificCause() instanceof SQLException sql
+                && EXCLUSION_VIOLATION.equals(sql.getSQLState());
+    }
+}
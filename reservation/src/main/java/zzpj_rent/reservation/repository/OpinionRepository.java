@@ -1,10 +1,29 @@
 package zzpj_rent.reservation.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import zzpj_rent.reservation.model.Opinion;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OpinionRepository extends JpaRepository<Opinion, Long> {
-    List<Opinion> findAllByUser_Id(Long userId);
+    String SELECT_ROW = "SELECT new zzpj_rent.reservation.repository.OpinionRow(o.id, o.rating, o.content, " +
+            "u.firstName, u.lastName, o.createdAt) FROM Opinion o JOIN o.user u ";
+
+    // Stronicowanie po (createdAt, id) - pierwsza strona i kolejne strony po kursorze
+    @Query(SELECT_ROW + "WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OpinionRow> findRowsByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query(SELECT_ROW + "WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OpinionRow> findRowsByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
 }
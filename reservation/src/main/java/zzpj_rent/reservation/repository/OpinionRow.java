@@ -0,0 +1,14 @@
+package zzpj_rent.reservation.repository;
+
+import zzpj_rent.reservation.dtos.response.OpinionResponse;
+
+import java.time.LocalDateTime;
+
+// Projekcja opinii z danymi ocenianego użytkownika; createdAt potrzebne do kursora stron
+public record OpinionRow(Long id, int rating, String content, String firstName, String lastName,
+                         LocalDateTime createdAt) {
+
+    public OpinionResponse toResponse() {
+        return new OpinionResponse(id, rating, content, firstName, lastName);
+    }
+}
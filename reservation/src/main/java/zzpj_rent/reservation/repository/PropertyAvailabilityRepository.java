@@ -0,0 +1,40 @@
+package zzpj_rent.reservation.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dostępność wielu mieszkań naraz. Lista ID trafia do bazy jako jedna tablica, a zajęte mieszkania
+ * odrzucamy anty-złączeniem (NOT EXISTS) po reservation_confirmed_ranges, które korzysta z indeksu GiST
+ * ograniczenia reservations_confirmed_no_overlap i nie zagląda do partycji rezerwacji.
+ */
+@Repository
+@AllArgsConstructor
+public class PropertyAvailabilityRepository {
+    private static final String FREE_PROPERTIES =
+            "SELECT p.id FROM unnest(?) WITH ORDINALITY AS p(id, position) WHERE NOT EXISTS (" +
+            "SELECT 1 FROM reservation_confirmed_ranges c WHERE c.property_id = p.id " +
+            "AND c.during && daterange(?, ?, '[]')) ORDER BY p.position";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Timed(value = "reservation.repository.availability", histogram = true)
+    public List<Long> findFreePropertyIds(Collection<Long> propertyIds, LocalDate startDate, LocalDate endDate) {
+        if (propertyIds.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(FREE_PROPERTIES, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", propertyIds.toArray()));
+            ps.setDate(2, Date.valueOf(startDate));
+            ps.setDate(3, Date.valueOf(endDate));
+        }, (rs, _) -> rs.getLong(1));
+    }
+}
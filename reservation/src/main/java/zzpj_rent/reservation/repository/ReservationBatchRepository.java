@@ -0,0 +1,137 @@
+package zzpj_rent.reservation.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import zzpj_rent.reservation.model.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Zapis wielu rezerwacji naraz. Hibernate nie potrafi grupować INSERT-ów dla kluczy IDENTITY,
+ * więc identyfikatory pobieramy z sekwencji kolumny jednym zapytaniem, a wiersze wysyłamy batchem JDBC.
+ */
+@Repository
+@AllArgsConstructor
+public class ReservationBatchRepository {
+    private static final int BATCH_SIZE = 100;
+
+    private static final String NEXT_IDS =
+            "SELECT nextval(pg_get_serial_sequence('reservations', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT =
+            "INSERT INTO reservations (id, property_id, tenant_id, start_date, end_date, status, created_at, payment, price) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Warunek na poprzedni status chroni przed nadpisaniem zmiany, która przyszła po naszym odczycie;
+    // start_date zawęża zapis do jednej partycji
+    private static final String UPDATE_STATUS =
+            "UPDATE reservations SET status = ?, version = version + 1 WHERE id = ? AND start_date = ? AND status = ?";
+
+    // Zdarzenie STATUS_CHANGED w tym samym zapytaniu co zmiana; JSON ma pola ReservationEvent
+    private static final String OUTBOX_STATUS_CHANGED =
+            "events AS (INSERT INTO reservation_outbox (aggregate_id, type, payload, created_at) " +
+            "SELECT id, 'STATUS_CHANGED', json_build_object('reservationId', id, 'propertyId', property_id, " +
+            "'tenantId', tenant_id, 'status', status, 'startDate', start_date, 'endDate', end_date, " +
+            "'price', price, 'version', version)::text, localtimestamp FROM changed ORDER BY id) ";
+
+    // Wiersze reservation_view zmieniamy w tym samym zapytaniu, żeby odczyty od razu widziały nowy status
+    private static final String VIEW_STATUS_CHANGED =
+            "view AS (UPDATE reservation_view v SET status = changed.status, version = changed.version " +
+            "FROM changed WHERE v.id = changed.id) ";
+
+    // Przejęte wiersze bez złączenia z CTE: złączenie planista robi haszowaniem przez wszystkie partycje.
+    // Zakres start_date z podzapytań pozwala Postgresowi pominąć w trakcie wykonania partycje spoza porcji
+    private static final String CLAIMED =
+            "WHERE r.id = ANY(ARRAY(SELECT id FROM claimed)) " +
+            "AND r.start_date BETWEEN (SELECT min(start_date) FROM claimed) AND (SELECT max(start_date) FROM claimed) ";
+
+    // SKIP LOCKED pomija wiersze przejęte właśnie przez inną instancję. Rezerwacja kończy się po starcie,
+    // więc warunek na start_date pomija partycje przyszłych miesięcy
+    private static final String FINISH_ENDED =
+            "WITH claimed AS (SELECT id, start_date FROM reservations WHERE status = 'CONFIRMED' AND end_date < ? " +
+            "AND start_date < ? " +
+            "ORDER BY end_date, id LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "changed AS (UPDATE reservations r SET status = 'FINISHED', version = r.version + 1 " +
+            CLAIMED + "RETURNING r.*), " +
+            OUTBOX_STATUS_CHANGED + ", " + VIEW_STATUS_CHANGED +
+            "SELECT id, property_id, start_date, end_date FROM changed";
+
+    private static final String EXPIRE_PENDING =
+            "WITH claimed AS (SELECT id, start_date FROM reservations WHERE status = 'PENDING' AND created_at < ? " +
+            "ORDER BY created_at, id LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "changed AS (UPDATE reservations r SET status = 'REJECTED', version = r.version + 1 " +
+            CLAIMED + "RETURNING r.*), " +
+            OUTBOX_STATUS_CHANGED + ", " + VIEW_STATUS_CHANGED +
+            "SELECT count(*) FROM changed";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    @Timed(value = "reservation.repository.batch", histogram = true)
+    public void insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS, Long.class, reservations.size());
+        for (int i = 0; i < reservations.size(); i++) {
+            reservations.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, reservations, BATCH_SIZE, (ps, reservation) -> {
+            ps.setLong(1, reservation.getId());
+            ps.setLong(2, reservation.getProperty().getId());
+            ps.setLong(3, reservation.getTenant().getId());
+            ps.setObject(4, reservation.getStartDate());
+            ps.setObject(5, reservation.getEndDate());
+            ps.setString(6, reservation.getStatus().name());
+            ps.setObject(7, reservation.getCreatedAt());
+            ps.setString(8, reservation.getPayment().name());
+            ps.setBigDecimal(9, reservation.getPrice());
+        });
+    }
+
+    /**
+     * Zmienia status wielu rezerwacji jednym batchem. Zwraca liczbę zmienionych wierszy dla każdej rezerwacji,
+     * w kolejności listy - 0 oznacza, że rezerwacja nie miała już oczekiwanego statusu.
+     */
+    @Transactional
+    @Timed(value = "reservation.repository.batch", histogram = true)
+    public int[] updateStatuses(List<Reservation> reservations, Reservation.Status expected, Reservation.Status status) {
+        if (reservations.isEmpty()) {
+            return new int[0];
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, reservations, BATCH_SIZE, (ps, reservation) -> {
+            ps.setString(1, status.name());
+            ps.setLong(2, reservation.getId());
+            ps.setObject(3, reservation.getStartDate());
+            ps.setString(4, expected.name());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    /**
+     * Kończy najwyżej {@code limit} potwierdzonych rezerwacji, których data końca jest przed {@code today}.
+     * Zwraca przedziały zakończonych rezerwacji, żeby wywołujący mógł zwolnić je w pamięci.
+     */
+    @Transactional
+    @Timed(value = "reservation.repository.batch", histogram = true)
+    public List<ReservationInterval> finishEnded(LocalDate today, int limit) {
+        return jdbcTemplate.query(FINISH_ENDED, (rs, _) -> new ReservationInterval(rs.getLong(1), rs.getLong(2),
+                rs.getObject(3, LocalDate.class), rs.getObject(4, LocalDate.class)), today, today, limit);
+    }
+
+    // Odrzuca najwyżej limit rezerwacji PENDING utworzonych przed createdBefore i zwraca ich liczbę
+    @Transactional
+    @Timed(value = "reservation.repository.batch", histogram = true)
+    public int expirePending(LocalDateTime createdBefore, int limit) {
+        return jdbcTemplate.queryForObject(EXPIRE_PENDING, Integer.class, createdBefore, limit);
+    }
+}
@@ -0,0 +1,6 @@
+package zzpj_rent.reservation.repository;
+
+import java.time.LocalDate;
+
+public record ReservationInterval(Long id, Long propertyId, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,83 @@
+package zzpj_rent.reservation.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Miesięczne partycje tabeli reservations (migracja {@code V5__partition_reservations.sql}).
+ * Nową partycję zakładamy jako osobną tabelę i dołączamy przez ATTACH PARTITION, który nie blokuje
+ * odczytów ani zapisów w reservations, w przeciwieństwie do CREATE TABLE ... PARTITION OF.
+ */
+@Repository
+@AllArgsConstructor
+public class ReservationPartitionRepository {
+    public static final String DEFAULT_PARTITION = "reservations_default";
+
+    // Jedna instancja naraz zakłada partycje; pozostałe czekają i widzą już gotowy miesiąc
+    static final long LOCK_KEY = 0x7061727473L;
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'reservations_p'yyyy_MM");
+
+    private static final String PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'reservations'::regclass";
+
+    // Wiersze danego miesiąca, które trafiły do partycji domyślnej, zanim miesiąc powstał. Wyzwalacz usuwa
+    // przy tym ich przedziały z reservation_confirmed_ranges, więc po dołączeniu partycji wstawiamy je ponownie.
+    private static final String MOVE_FROM_DEFAULT =
+            "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE start_date >= ? AND start_date < ? " +
+            "RETURNING *) INSERT INTO %s SELECT * FROM moved";
+
+    private static final String RESTORE_CONFIRMED_RANGES =
+            "INSERT INTO reservation_confirmed_ranges (reservation_id, property_id, during) " +
+            "SELECT id, property_id, daterange(start_date, end_date, '[]') FROM %s WHERE status = 'CONFIRMED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Set<YearMonth> findMonths() {
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS, String.class)) {
+            try {
+                months.add(YearMonth.parse(name, NAME));
+            } catch (DateTimeParseException ex) {
+                // partycja domyślna albo dołączona ręcznie
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Zakłada partycję miesiąca i przenosi do niej jego wiersze z partycji domyślnej.
+     * Zwraca false, jeśli partycja już istnieje.
+     */
+    @Transactional
+    public boolean createMonth(YearMonth month) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", LOCK_KEY);
+
+        String name = month.format(NAME);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return false;
+        }
+
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update(MOVE_FROM_DEFAULT.formatted(name), from, to);
+        jdbcTemplate.execute("ALTER TABLE reservations ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        if (moved > 0) {
+            jdbcTemplate.update(RESTORE_CONFIRMED_RANGES.formatted(name));
+        }
+        return true;
+    }
+}
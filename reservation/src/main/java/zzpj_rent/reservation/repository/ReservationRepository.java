@@ -1,5 +1,6 @@
 package zzpj_rent.reservation.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,17 +10,17 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
-    @Query("SELECT r FROM Reservation r WHERE r.property.id = :propertyId " +
-            "AND r.status = 'CONFIRMED' " +
-            "AND (r.startDate <= :endDate AND r.endDate >= :startDate)")
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, ConfirmedIntervalQueries {
+    // Przedziały potwierdzonych rezerwacji bierzemy z reservation_confirmed_ranges (indeks GiST ograniczenia
+    // reservations_confirmed_no_overlap), a wiersz rezerwacji doczytujemy po kluczu głównym razem z partycją
+    @Query(value = "SELECT r.* FROM reservation_confirmed_ranges c " +
+            "JOIN reservations r ON r.id = c.reservation_id AND r.start_date = lower(c.during) " +
+            "WHERE c.property_id = :propertyId AND c.during && daterange(:startDate, :endDate, '[]')",
+            nativeQuery = true)
     List<Reservation> findByPropertyIdAndDateRangeOverlap(
             @Param("propertyId") Long propertyId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
-    List<Reservation> findByTenantId(Long tenantId);
     Optional<Reservation> findByIdAndTenantId(Long id, Long tenantId);
-    List<Reservation> findByStatusAndTenantId(Reservation.Status status, Long tenantId);
-    List<Reservation> findByPropertyId(Long propertyId);
 }
@@ -0,0 +1,31 @@
+package zzpj_rent.reservation.repository;
+
+import zzpj_rent.reservation.dtos.response.ReservationResponse;
+import zzpj_rent.reservation.model.Reservation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Projekcja rezerwacji z danymi najemcy pobrana jednym zapytaniem; createdAt potrzebne do kursora stron
+public record ReservationRow(Long id, Long propertyId, Long tenantId, String tenantName, String tenantSurname,
+                             LocalDate startDate, LocalDate endDate, Reservation.Status status,
+                             Reservation.Payment payment, BigDecimal price, LocalDateTime createdAt,
+                             long version) {
+
+    public ReservationResponse toResponse() {
+        return ReservationResponse.builder()
+                .id(id)
+                .propertyId(propertyId)
+                .tenantId(tenantId)
+                .tenantName(tenantName)
+                .tenantSurname(tenantSurname)
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(status.name())
+                .payment(payment == null ? null : payment.name())
+                .price(price)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package zzpj_rent.reservation.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.model.ReservationView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Odczyty rezerwacji z {@code reservation_view} - jedna tabela, bez złączenia z najemcą.
+ * Zapisy muszą iść w transakcji, która zmienia {@code reservations}, żeby widok nie rozjechał się z danymi.
+ * Dane najemcy odświeża {@link zzpj_rent.reservation.services.TenantNameSync}.
+ */
+public interface ReservationViewRepository extends JpaRepository<ReservationView, Long> {
+    String SELECT_ROW = "SELECT new zzpj_rent.reservation.repository.ReservationRow(v.id, v.propertyId, " +
+            "v.tenantId, v.tenantName, v.tenantSurname, v.startDate, v.endDate, v.status, v.payment, v.price, " +
+            "v.createdAt, v.version) " +
+            "FROM ReservationView v ";
+
+    String INSERT_FROM_RESERVATIONS = "INSERT INTO reservation_view (id, property_id, tenant_id, tenant_name, " +
+            "tenant_surname, start_date, end_date, status, payment, price, created_at, version) " +
+            "SELECT r.id, r.property_id, r.tenant_id, t.first_name, t.last_name, r.start_date, r.end_date, " +
+            "r.status, r.payment, r.price, r.created_at, r.version " +
+            "FROM reservations r JOIN users_entity t ON t.id = r.tenant_id ";
+
+    @Query(SELECT_ROW + "WHERE v.id = :id")
+    Optional<ReservationRow> findRowById(@Param("id") Long id);
+
+    @Query(SELECT_ROW + "WHERE v.id = :id AND v.tenantId = :tenantId")
+    Optional<ReservationRow> findRowByIdAndTenantId(@Param("id") Long id, @Param("tenantId") Long tenantId);
+
+    // Stronicowanie po (createdAt, id) - pierwsza strona i kolejne strony po kursorze
+    @Query(SELECT_ROW + "WHERE v.tenantId = :tenantId ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByTenantId(@Param("tenantId") Long tenantId, Limit limit);
+
+    @Query(SELECT_ROW + "WHERE v.tenantId = :tenantId " +
+            "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByTenantIdAfter(
+            @Param("tenantId") Long tenantId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    @Query(SELECT_ROW + "WHERE v.tenantId = :tenantId AND v.status = :status ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByTenantIdAndStatus(@Param("tenantId") Long tenantId,
+                                                     @Param("status") Reservation.Status status,
+                                                     Limit limit);
+
+    @Query(SELECT_ROW + "WHERE v.tenantId = :tenantId AND v.status = :status " +
+            "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByTenantIdAndStatusAfter(
+            @Param("tenantId") Long tenantId,
+            @Param("status") Reservation.Status status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    @Query(SELECT_ROW + "WHERE v.propertyId = :propertyId ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByPropertyId(@Param("propertyId") Long propertyId, Limit limit);
+
+    @Query(SELECT_ROW + "WHERE v.propertyId = :propertyId " +
+            "AND (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+            "ORDER BY v.createdAt DESC, v.id DESC")
+    List<ReservationRow> findRowsByPropertyIdAfter(
+            @Param("propertyId") Long propertyId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    default void refresh(Long id) {
+        refresh(List.of(id));
+    }
+
+    // Przepisuje wiersze podanych rezerwacji z aktualnego stanu reservations; usunięte rezerwacje znikają z widoku
+    default void refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        deleteRows(ids);
+        insertRows(ids);
+    }
+
+    @Modifying
+    @Query(value = "DELETE FROM reservation_view WHERE id IN (:ids)", nativeQuery = true)
+    void deleteRows(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = INSERT_FROM_RESERVATIONS + "WHERE r.id IN (:ids)", nativeQuery = true)
+    void insertRows(@Param("ids") Collection<Long> ids);
+
+    // Blokuje zapisy rezerwacji do końca transakcji przebudowy
+    @Modifying
+    @Query(value = "LOCK TABLE reservations IN SHARE MODE", nativeQuery = true)
+    void lockReservations();
+
+    @Modifying
+    @Query(value = INSERT_FROM_RESERVATIONS, nativeQuery = true)
+    int insertAllRows();
+
+    @Query(value = "SELECT max(id) FROM reservation_view", nativeQuery = true)
+    Optional<Long> findMaxId();
+
+    // Identyfikatory z przedziału (fromId, toId]; zapisuje tylko wiersze, w których dane najemcy się zmieniły
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE reservation_view v SET tenant_name = t.first_name, tenant_surname = t.last_name " +
+            "FROM users_entity t WHERE t.id = v.tenant_id AND v.id > :fromId AND v.id <= :toId " +
+            "AND (v.tenant_name IS DISTINCT FROM t.first_name OR v.tenant_surname IS DISTINCT FROM t.last_name)",
+            nativeQuery = true)
+    int refreshTenantNames(@Param("fromId") long fromId, @Param("toId") long toId);
+}
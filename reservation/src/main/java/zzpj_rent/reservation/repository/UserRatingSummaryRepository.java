@@ -0,0 +1,40 @@
+package zzpj_rent.reservation.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import zzpj_rent.reservation.model.UserRatingSummary;
+
+public interface UserRatingSummaryRepository extends JpaRepository<UserRatingSummary, Long> {
+    // Jedno zapytanie dodaje (delta = 1) albo odejmuje (delta = -1) ocenę, tworząc wiersz przy pierwszej opinii
+    @Modifying
+    @Query(value = "INSERT INTO user_rating_summary AS s " +
+            "(user_id, rating_sum, rating_count, rating_0, rating_1, rating_2, rating_3, rating_4, rating_5) " +
+            "VALUES (:userId, :rating * :delta, :delta, " +
+            "CASE WHEN :rating = 0 THEN :delta ELSE 0 END, CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+            "CASE WHEN :rating = 2 THEN :delta ELSE 0 END, CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+            "CASE WHEN :rating = 4 THEN :delta ELSE 0 END, CASE WHEN :rating = 5 THEN :delta ELSE 0 END) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "rating_sum = s.rating_sum + EXCLUDED.rating_sum, rating_count = s.rating_count + EXCLUDED.rating_count, " +
+            "rating_0 = s.rating_0 + EXCLUDED.rating_0, rating_1 = s.rating_1 + EXCLUDED.rating_1, " +
+            "rating_2 = s.rating_2 + EXCLUDED.rating_2, rating_3 = s.rating_3 + EXCLUDED.rating_3, " +
+            "rating_4 = s.rating_4 + EXCLUDED.rating_4, rating_5 = s.rating_5 + EXCLUDED.rating_5",
+            nativeQuery = true)
+    void addRating(@Param("userId") Long userId, @Param("rating") int rating, @Param("delta") int delta);
+
+    // Blokuje dodawanie i usuwanie opinii do końca transakcji przebudowy
+    @Modifying
+    @Query(value = "LOCK TABLE opinions IN SHARE MODE", nativeQuery = true)
+    void lockOpinions();
+
+    @Modifying
+    @Query(value = "INSERT INTO user_rating_summary " +
+            "(user_id, rating_sum, rating_count, rating_0, rating_1, rating_2, rating_3, rating_4, rating_5) " +
+            "SELECT user_id, SUM(rating), COUNT(*), " +
+            "SUM(CASE WHEN rating = 0 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) " +
+            "FROM opinions GROUP BY user_id", nativeQuery = true)
+    int insertFromOpinions();
+}
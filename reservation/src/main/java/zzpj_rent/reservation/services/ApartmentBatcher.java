@@ -0,0 +1,204 @@
+package zzpj_rent.reservation.services;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.ApartmentBatchProperties;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.microservices.ApartmentClient;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Pobiera mieszkania z Rental-listing-service. Równoległe zapytania o to samo ID czekają na jedno
+ * wywołanie, a przy włączonym łączeniu różne ID zebrane w krótkim oknie idą jednym zapytaniem
+ * o wiele mieszkań. Zwraca {@code null}, gdy mieszkanie nie istnieje. Wywołania zawsze idą na wątkach
+ * {@code loader}, więc przerwanie wątku jednego z czekających nie psuje wyniku pozostałym. To wątki platformowe:
+ * wywołujący czekają na wynik wewnątrz obliczenia Caffeine, które przypina wirtualny wątek do nośnika, więc przy
+ * wszystkich nośnikach zajętych przez czekających wirtualny wątek ładujący nie ruszyłby wcale.
+ * {@link #getAll} wysyła naraz najwyżej tyle wywołań, ile mieści bulkhead, i zwraca to, co udało się pobrać.
+ */
+@Component
+public class ApartmentBatcher {
+    public static final String COALESCED = "reservation.apartments.coalesced";
+    public static final String BATCH_SIZE = "reservation.apartments.batch.size";
+
+    private final ApartmentClient apartmentClient;
+    private final RemoteCalls remoteCalls;
+    private final ApartmentBatchProperties properties;
+    private final Map<Long, CompletableFuture<ApartmentDTO>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("apartment-batcher").daemon().factory());
+    private final ExecutorService loader =
+            Executors.newCachedThreadPool(Thread.ofPlatform().name("apartment-loader-", 0).daemon().factory());
+    private final Counter coalesced;
+    private final DistributionSummary batchSize;
+    private List<Long> pending = new ArrayList<>();
+
+    public ApartmentBatcher(ApartmentClient apartmentClient, RemoteCalls remoteCalls,
+                            ApartmentBatchProperties properties, MeterRegistry meterRegistry) {
+        this.apartmentClient = apartmentClient;
+        this.remoteCalls = remoteCalls;
+        this.properties = properties;
+        this.coalesced = Counter.builder(COALESCED)
+                .description("Apartment lookups that joined a call already in flight")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE)
+                .description("Number of ids sent in one bulk apartment call")
+                .register(meterRegistry);
+    }
+
+    public ApartmentDTO get(Long id) {
+        return await(submit(id));
+    }
+
+    // Wynik nie zawiera mieszkań, które nie istnieją, ani tych, których nie udało się pobrać - błąd zgłosi
+    // dopiero get dla konkretnego ID. Bulkhead nie czeka na wolne miejsce, więc ID idą porcjami, z których
+    // każda mieści się w nim w całości
+    public Map<Long, ApartmentDTO> getAll(Collection<Long> ids) {
+        int callsPerChunk = remoteCalls.maxConcurrentCalls(RemoteCalls.APARTMENTS);
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        int chunkSize = properties.enabled() ? callsPerChunk * properties.maxBatchSize() : callsPerChunk;
+
+        Map<Long, ApartmentDTO> apartments = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            Map<Long, CompletableFuture<ApartmentDTO>> futures = new LinkedHashMap<>();
+            distinct.subList(from, Math.min(from + chunkSize, distinct.size()))
+                    .forEach(id -> futures.put(id, submit(id)));
+            futures.forEach((id, future) -> {
+                try {
+                    ApartmentDTO apartment = await(future);
+                    if (apartment != null) {
+                        apartments.put(id, apartment);
+                    }
+                } catch (RuntimeException _) {
+                    // pomijamy, pozostałe mieszkania z porcji są poprawne
+                }
+            });
+        }
+        return apartments;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        loader.shutdownNow();
+    }
+
+    private CompletableFuture<ApartmentDTO> submit(Long id) {
+        CompletableFuture<ApartmentDTO> created = new CompletableFuture<>();
+        CompletableFuture<ApartmentDTO> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        if (properties.enabled()) {
+            enqueue(id);
+        } else {
+            execute(List.of(id));
+        }
+        return created;
+    }
+
+    private void enqueue(Long id) {
+        List<Long> full = null;
+        synchronized (this) {
+            pending.add(id);
+            if (pending.size() >= properties.maxBatchSize()) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (pending.size() == 1) {
+                scheduler.schedule(this::flush, properties.maxDelay().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            execute(full);
+        }
+    }
+
+    private void flush() {
+        List<Long> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        execute(batch);
+    }
+
+    // Po zamknięciu puli czekający dostają błąd zamiast wisieć na niezakończonym wywołaniu
+    private void execute(List<Long> ids) {
+        try {
+            loader.execute(() -> load(ids));
+        } catch (RejectedExecutionException ex) {
+            fail(ids, ex);
+        }
+    }
+
+    // Każdy wpis z inFlight musi zostać zakończony i usunięty, inaczej kolejne zapytania o to ID czekałyby w nieskończoność
+    private void load(List<Long> ids) {
+        Map<Long, ApartmentDTO> apartments;
+        try {
+            apartments = fetch(ids);
+        } catch (Throwable ex) {
+            fail(ids, ex);
+            if (ex instanceof Error error) {
+                throw error;
+            }
+            return;
+        }
+        // Usuwamy przed zakończeniem, żeby kolejne wywołanie pobrało świeże dane
+        ids.forEach(id -> {
+            CompletableFuture<ApartmentDTO> future = inFlight.remove(id);
+            if (future != null) {
+                future.complete(apartments.get(id));
+            }
+        });
+    }
+
+    private void fail(List<Long> ids, Throwable ex) {
+        ids.forEach(id -> {
+            CompletableFuture<ApartmentDTO> future = inFlight.remove(id);
+            if (future != null) {
+                future.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private Map<Long, ApartmentDTO> fetch(List<Long> ids) {
+        if (ids.size() == 1) {
+            Long id = ids.getFirst();
+            try {
+                ApartmentDTO apartment = remoteCalls.call(RemoteCalls.APARTMENTS,
+                        () -> apartmentClient.getApartmentById(id));
+                return apartment == null ? Map.of() : Map.of(id, apartment);
+            } catch (FeignException.NotFound _) {
+                return Map.of();
+            }
+        }
+
+        batchSize.record(ids.size());
+        Map<Long, ApartmentDTO> apartments = new HashMap<>();
+        remoteCalls.call(RemoteCalls.APARTMENTS, () -> apartmentClient.getApartmentsByIds(ids))
+                .forEach(apartment -> apartments.put(apartment.getId(), apartment));
+        return apartments;
+    }
+
+    private static ApartmentDTO await(CompletableFuture<ApartmentDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package zzpj_rent.reservation.services;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trzyma w pamięci przedziały dat potwierdzonych (CONFIRMED) rezerwacji dla każdego mieszkania,
+ * dzięki czemu sprawdzenie dostępności nie wymaga zapytania do bazy.
+ * Dopóki indeks nie zostanie zbudowany, zapytania trafiają do {@link ReservationRepository}.
+ * Indeks widzi na bieżąco tylko zapisy tej instancji. Rezerwacje potwierdzone przez inne instancje
+ * trafiają do niego przy przebudowie co {@code reservation.availability.refresh-interval}. Odwołane
+ * i usunięte nie blokują terminów, bo przed odmową dostępność jest sprawdzana w bazie.
+ */
+@Component
+public class AvailabilityIndex {
+    private final ReservationRepository reservationRepository;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, Intervals> intervals = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> propertyByReservation = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public AvailabilityIndex(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${reservation.availability.refresh-interval:1m}",
+            fixedDelayString = "${reservation.availability.refresh-interval:1m}")
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            Map<Long, List<ReservationInterval>> byProperty = new HashMap<>();
+            Map<Long, Long> rebuiltPropertyIds = new ConcurrentHashMap<>();
+            for (ReservationInterval interval : reservationRepository.findAllConfirmedIntervals()) {
+                byProperty.computeIfAbsent(interval.propertyId(), _ -> new ArrayList<>()).add(interval);
+                rebuiltPropertyIds.put(interval.id(), interval.propertyId());
+            }
+
+            Map<Long, Intervals> rebuilt = new ConcurrentHashMap<>();
+            byProperty.forEach((propertyId, list) -> rebuilt.put(propertyId, Intervals.of(list)));
+            intervals = rebuilt;
+            propertyByReservation = rebuiltPropertyIds;
+            loaded = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    public boolean isAvailable(Long propertyId, LocalDate startDate, LocalDate endDate) {
+        if (!loaded) {
+            return reservationRepository
+                    .findByPropertyIdAndDateRangeOverlap(propertyId, startDate, endDate)
+                    .isEmpty();
+        }
+
+        Intervals property = intervals.get(propertyId);
+        if (property == null || !property.overlaps(startDate.toEpochDay(), endDate.toEpochDay())) {
+            return true;
+        }
+
+        // Kolizja mogła zostać odwołana na innej instancji; baza rozstrzyga i poprawia indeks dla tych dat
+        List<Reservation> overlapping = reservationRepository.findByPropertyIdAndDateRangeOverlap(propertyId,
+                startDate, endDate);
+        sync(propertyId, startDate, endDate, overlapping);
+        return overlapping.isEmpty();
+    }
+
+    private void sync(Long propertyId, LocalDate startDate, LocalDate endDate, List<Reservation> overlapping) {
+        Set<Long> current = new HashSet<>();
+        overlapping.forEach(reservation -> current.add(reservation.getId()));
+        Intervals property = intervals.get(propertyId);
+        if (property != null) {
+            for (long stale : property.overlappingIds(startDate.toEpochDay(), endDate.toEpochDay())) {
+                if (!current.contains(stale)) {
+                    remove(stale);
+                }
+            }
+        }
+        overlapping.forEach(this::add);
+    }
+
+    public void add(Reservation reservation) {
+        ReservationInterval interval = new ReservationInterval(reservation.getId(), reservation.getProperty().getId(),
+                reservation.getStartDate(), reservation.getEndDate());
+
+        rebuildLock.readLock().lock();
+        try {
+            propertyByReservation.put(interval.id(), interval.propertyId());
+            intervals.compute(interval.propertyId(), (_, current) ->
+                    (current == null ? Intervals.EMPTY : current).with(interval));
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public void remove(Long reservationId) {
+        rebuildLock.readLock().lock();
+        try {
+            Long propertyId = propertyByReservation.remove(reservationId);
+            if (propertyId == null) {
+                return;
+            }
+            intervals.computeIfPresent(propertyId, (_, current) -> {
+                Intervals updated = current.without(reservationId);
+                return updated.isEmpty() ? null : updated;
+            });
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Niezmienna lista przedziałów jednego mieszkania posortowana po dacie początku.
+     * {@code maxEnds[i]} to największa data końca wśród pierwszych {@code i + 1} przedziałów,
+     * więc kolizję sprawdzamy jednym wyszukiwaniem binarnym.
+     */
+    private record Intervals(long[] ids, long[] starts, long[] ends, long[] maxEnds) {
+        private static final Intervals EMPTY = new Intervals(new long[0], new long[0], new long[0], new long[0]);
+
+        private static Intervals of(List<ReservationInterval> list) {
+            List<ReservationInterval> sorted = new ArrayList<>(list);
+            sorted.sort(Comparator.comparing(ReservationInterval::startDate));
+
+            int n = sorted.size();
+            long[] ids = new long[n];
+            long[] starts = new long[n];
+            long[] ends = new long[n];
+            for (int i = 0; i < n; i++) {
+                ReservationInterval interval = sorted.get(i);
+                ids[i] = interval.id();
+                starts[i] = interval.startDate().toEpochDay();
+                ends[i] = interval.endDate().toEpochDay();
+            }
+            return new Intervals(ids, starts, ends, prefixMax(ends));
+        }
+
+        private static long[] prefixMax(long[] ends) {
+            long[] maxEnds = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+            return maxEnds;
+        }
+
+        // Takie samo porównanie jak w findByPropertyIdAndDateRangeOverlap: start <= endDate AND end >= startDate
+        private boolean overlaps(long startDay, long endDay) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= endDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low > 0 && maxEnds[low - 1] >= startDay;
+        }
+
+        private List<Long> overlappingIds(long startDay, long endDay) {
+            List<Long> overlapping = new ArrayList<>();
+            for (int i = 0; i < ids.length && starts[i] <= endDay; i++) {
+                if (ends[i] >= startDay) {
+                    overlapping.add(ids[i]);
+                }
+            }
+            return overlapping;
+        }
+
+        private boolean isEmpty() {
+            return ids.length == 0;
+        }
+
+        private Intervals with(ReservationInterval interval) {
+            Intervals base = without(interval.id());
+            long start = interval.startDate().toEpochDay();
+
+            int position = 0;
+            while (position < base.starts.length && base.starts[position] <= start) {
+                position++;
+            }
+
+            int n = base.ids.length + 1;
+            long[] ids = new long[n];
+            long[] starts = new long[n];
+            long[] ends = new long[n];
+            System.arraycopy(base.ids, 0, ids, 0, position);
+            System.arraycopy(base.starts, 0, starts, 0, position);
+            System.arraycopy(base.ends, 0, ends, 0, position);
+            ids[position] = interval.id();
+            starts[position] = start;
+            ends[position] = interval.endDate().toEpochDay();
+            System.arraycopy(base.ids, position, ids, position + 1, n - position - 1);
+            System.arraycopy(base.starts, position, starts, position + 1, n - position - 1);
+            System.arraycopy(base.ends, position, ends, position + 1, n - position - 1);
+            return new Intervals(ids, starts, ends, prefixMax(ends));
+        }
+
+        private Intervals without(long reservationId) {
+            int position = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == reservationId) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return this;
+            }
+
+            int n = ids.length - 1;
+            long[] newIds = new long[n];
+            long[] newStarts = new long[n];
+            long[] newEnds = new long[n];
+            System.arraycopy(ids, 0, newIds, 0, position);
+            System.arraycopy(starts, 0, newStarts, 0, position);
+            System.arraycopy(ends, 0, newEnds, 0, position);
+            System.arraycopy(ids, position + 1, newIds, position, n - position);
+            System.arraycopy(starts, position + 1, newStarts, position, n - position);
+            System.arraycopy(ends, position + 1, newEnds, position, n - position);
+            return new Intervals(newIds, newStarts, newEnds, prefixMax(newEnds));
+        }
+    }
+}
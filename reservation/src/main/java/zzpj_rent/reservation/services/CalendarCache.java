@@ -0,0 +1,103 @@
+package zzpj_rent.reservation.services;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Zajęte dni mieszkań trzymane jako {@link BitSet} na miesiąc (bit {@code i} to dzień {@code i + 1}).
+ * Brakujące miesiące jednego zapytania o kalendarz ładujemy jednym zapytaniem do bazy.
+ */
+@Component
+public class CalendarCache {
+    private final ReservationRepository reservationRepository;
+    private final LoadingCache<PropertyMonth, BitSet> cache;
+
+    public CalendarCache(ReservationRepository reservationRepository, CalendarCacheProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.timeToLive())
+                .recordStats()
+                .build(new CacheLoader<PropertyMonth, BitSet>() {
+                    @Override
+                    public BitSet load(PropertyMonth key) {
+                        return loadAll(Set.of(key)).get(key);
+                    }
+
+                    @Override
+                    public Map<PropertyMonth, BitSet> loadAll(Set<? extends PropertyMonth> keys) {
+                        return fetch(keys);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "calendar");
+    }
+
+    // Bit i wyniku oznacza, że dzień from + i jest zajęty
+    public BitSet bookedDays(Long propertyId, LocalDate from, LocalDate to) {
+        List<PropertyMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            months.add(new PropertyMonth(propertyId, month));
+        }
+        Map<PropertyMonth, BitSet> booked = cache.getAll(months);
+
+        BitSet result = new BitSet();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (booked.get(new PropertyMonth(propertyId, YearMonth.from(day))).get(day.getDayOfMonth() - 1)) {
+                result.set((int) (day.toEpochDay() - from.toEpochDay()));
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long propertyId, LocalDate startDate, LocalDate endDate) {
+        List<PropertyMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate));
+             month = month.plusMonths(1)) {
+            months.add(new PropertyMonth(propertyId, month));
+        }
+        cache.invalidateAll(months);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Map<PropertyMonth, BitSet> fetch(Set<? extends PropertyMonth> keys) {
+        Map<PropertyMonth, BitSet> result = new HashMap<>();
+        keys.forEach(key -> result.put(key, new BitSet(key.month().lengthOfMonth())));
+
+        Map<Long, List<YearMonth>> byProperty = keys.stream().collect(Collectors.groupingBy(
+                PropertyMonth::propertyId, Collectors.mapping(PropertyMonth::month, Collectors.toList())));
+        byProperty.forEach((propertyId, months) -> {
+            LocalDate from = Collections.min(months).atDay(1);
+            LocalDate to = Collections.max(months).atEndOfMonth();
+            for (ReservationInterval interval : reservationRepository.findConfirmedIntervals(propertyId, from, to)) {
+                LocalDate start = interval.startDate().isBefore(from) ? from : interval.startDate();
+                LocalDate end = interval.endDate().isAfter(to) ? to : interval.endDate();
+                for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                    BitSet days = result.get(new PropertyMonth(propertyId, YearMonth.from(day)));
+                    if (days != null) {
+                        days.set(day.getDayOfMonth() - 1);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    private record PropertyMonth(Long propertyId, YearMonth month) {
+    }
+}
@@ -0,0 +1,23 @@
+package zzpj_rent.reservation.services;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.model.OutboxEvent;
+
+import java.util.List;
+
+// Publikuje każde zdarzenie jako zdarzenie aplikacji; słuchacze (@EventListener(OutboxEvent.class)) działają
+// synchronicznie, więc wyjątek słuchacza wstrzymuje paczkę do kolejnej próby
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "reservation.outbox", name = "publisher", havingValue = "in-process")
+public class InProcessOutboxPublisher implements OutboxPublisher {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,23 @@
+package zzpj_rent.reservation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.model.OutboxEvent;
+
+import java.util.List;
+
+// Jedna linia JSON na zdarzenie; logger reservation.outbox można skierować do osobnego pliku w konfiguracji logowania
+@Slf4j(topic = "reservation.outbox")
+@Component
+@ConditionalOnProperty(prefix = "reservation.outbox", name = "publisher", havingValue = "log", matchIfMissing = true)
+public class LogOutboxPublisher implements OutboxPublisher {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("{\"id\":{},\"type\":\"{}\",\"reservationId\":{},\"createdAt\":\"{}\",\"payload\":{}}",
+                    event.getId(), event.getType(), event.getAggregateId(), event.getCreatedAt(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package zzpj_rent.reservation.services;
+
+import zzpj_rent.reservation.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Przekazuje zdarzenia z outboxa dalej, w kolejności listy. Wyjątek oznacza, że żadne zdarzenie z paczki
+ * nie zostanie uznane za wysłane - {@link OutboxRelay} spróbuje ponownie, więc odbiorcy muszą pomijać
+ * zdarzenia o już widzianym {@code id}.
+ */
+public interface OutboxPublisher {
+    void publish(List<OutboxEvent> events);
+}
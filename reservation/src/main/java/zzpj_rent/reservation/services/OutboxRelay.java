@@ -0,0 +1,90 @@
+package zzpj_rent.reservation.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import zzpj_rent.reservation.config.OutboxProperties;
+import zzpj_rent.reservation.model.OutboxEvent;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+
+import java.util.List;
+
+/**
+ * Wysyła zdarzenia z outboxa rezerwacji porcjami, od najstarszego {@code id}, i usuwa je w tej samej
+ * transakcji. Wysyłka jest co najmniej raz: jeśli zatwierdzenie się nie uda, paczka pójdzie ponownie.
+ * Pracuje tylko instancja trzymająca blokadę doradczą, więc zdarzenia jednej rezerwacji
+ * nie wyprzedzają się nawet przy kilku instancjach.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reservation.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    public static final String PUBLISHED = "reservation.outbox.published";
+    public static final String FAILURES = "reservation.outbox.failures";
+    public static final String BATCHES = "reservation.outbox.batches";
+    // Klucz pg_try_advisory_xact_lock, wspólny dla wszystkich instancji
+    public static final long LOCK_KEY = 0x6f7574626f78L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer batches;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxPublisher outboxPublisher,
+                       TransactionTemplate transactionTemplate, OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxPublisher = outboxPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.published = meterRegistry.counter(PUBLISHED);
+        this.failures = meterRegistry.counter(FAILURES);
+        this.batches = Timer.builder(BATCHES).publishPercentileHistogram().register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${reservation.outbox.interval:1s}",
+            fixedDelayString = "${reservation.outbox.interval:1s}")
+    public int relay() {
+        int total = 0;
+        for (int batch = 0; batch < properties.maxBatchesPerRun(); batch++) {
+            int sent;
+            try {
+                sent = batches.record(() -> transactionTemplate.execute(_ -> relayBatch()));
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("Publishing outbox events failed, retrying in the next run", ex);
+                break;
+            }
+            published.increment(sent);
+            total += sent;
+
+            if (sent < properties.batchSize()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Zwraca 0, gdy blokadę trzyma inna instancja
+    private int relayBatch() {
+        if (!outboxEventRepository.tryLock(LOCK_KEY)) {
+            return 0;
+        }
+
+        List<OutboxEvent> events = outboxEventRepository.findByOrderByIdAsc(Limit.of(properties.batchSize()));
+        if (!events.isEmpty()) {
+            outboxPublisher.publish(events);
+            outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+        }
+        return events.size();
+    }
+}
@@ -0,0 +1,99 @@
+package zzpj_rent.reservation.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.LookupProperties;
+import zzpj_rent.reservation.exceptions.NotSpecifiedException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Uruchamia dwa niezależne zapytania do innych serwisów na wirtualnych wątkach.
+ * Oba mają wspólny termin. Błąd pierwszego kończy oczekiwanie na drugie, a po błędzie drugiego czekamy
+ * na wynik pierwszego, żeby zgłoszony błąd zawsze był błędem pierwszego zapytania, niezależnie od tego,
+ * które odpowie szybciej. Wątku drugiego zapytania nie przerywamy: przerwany odczyt Feign zgłasza jako błąd połączenia, który breaker policzyłby jako awarię
+ * zdrowego serwisu. Zapytanie kończy się samo w limicie czasu klienta HTTP, a jego wynik jest pomijany.
+ */
+@Component
+public class ParallelLookups {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration timeout;
+
+    public ParallelLookups(LookupProperties properties) {
+        this.timeout = properties.timeout();
+    }
+
+    public <A, B> Pair<A, B> fetchBoth(Supplier<A> first, Supplier<B> second) {
+        Lookup<A> a = submit(first);
+        Lookup<B> b = submit(second);
+        a.result.whenComplete((_, ex) -> {
+            if (ex != null) {
+                b.cancel();
+            }
+        });
+
+        try {
+            CompletableFuture.allOf(a.result, b.result).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException _) {
+            a.cancel();
+            b.cancel();
+            // Pierwsze nie zdążyło; jeśli drugie już wiadomo, że się nie uda, zgłaszamy jego błąd
+            b.rethrowFailure();
+            throw new NotSpecifiedException("Timed out while waiting for remote services");
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            a.cancel();
+            b.cancel();
+            throw new NotSpecifiedException("Interrupted while waiting for remote services");
+        } catch (ExecutionException | CancellationException _) {
+            // błąd zgłaszamy niżej, w kolejności zapytań
+        }
+
+        a.rethrowFailure();
+        b.rethrowFailure();
+        return new Pair<>(a.result.join(), b.result.join());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Lookup<T> submit(Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return new Lookup<>(result, task);
+    }
+
+    public record Pair<A, B>(A first, B second) {
+    }
+
+    private record Lookup<T>(CompletableFuture<T> result, Future<?> task) {
+        private void cancel() {
+            task.cancel(false);
+            result.cancel(false);
+        }
+
+        private void rethrowFailure() {
+            if (result.state() != Future.State.FAILED) {
+                return;
+            }
+            Throwable failure = result.exceptionNow();
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            throw new NotSpecifiedException("Remote lookup failed");
+        }
+    }
+}
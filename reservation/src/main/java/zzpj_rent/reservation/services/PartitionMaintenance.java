@@ -0,0 +1,76 @@
+package zzpj_rent.reservation.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.PartitionProperties;
+import zzpj_rent.reservation.repository.ReservationPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Zakłada partycje reservations na bieżący miesiąc i {@code monthsAhead} kolejnych - przy starcie
+ * i potem co {@code interval}. Błąd jednego miesiąca nie zatrzymuje pozostałych; do czasu utworzenia
+ * partycji jej wiersze trafiają do partycji domyślnej.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reservation.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionMaintenance {
+    public static final String CREATED = "reservation.partitions.created";
+    public static final String FAILURES = "reservation.partitions.failures";
+
+    private final ReservationPartitionRepository reservationPartitionRepository;
+    private final PartitionProperties properties;
+    private final Counter created;
+    private final Counter failures;
+
+    public PartitionMaintenance(ReservationPartitionRepository reservationPartitionRepository,
+                                PartitionProperties properties, MeterRegistry meterRegistry) {
+        this.reservationPartitionRepository = reservationPartitionRepository;
+        this.properties = properties;
+        this.created = meterRegistry.counter(CREATED);
+        this.failures = meterRegistry.counter(FAILURES);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createAheadOnStartup() {
+        createAhead();
+    }
+
+    @Scheduled(initialDelayString = "${reservation.partitions.interval:12h}",
+            fixedDelayString = "${reservation.partitions.interval:12h}")
+    public int createAhead() {
+        YearMonth current = YearMonth.now();
+        Set<YearMonth> existing = reservationPartitionRepository.findMonths();
+        int total = 0;
+        for (int i = 0; i <= properties.monthsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            if (existing.contains(month)) {
+                continue;
+            }
+
+            try {
+                if (reservationPartitionRepository.createMonth(month)) {
+                    created.increment();
+                    total++;
+                }
+            } catch (DataAccessException ex) {
+                failures.increment();
+                log.warn("Could not create reservations partition for {}", month, ex);
+            }
+        }
+
+        if (total > 0) {
+            log.info("Created {} reservations partitions up to {}", total, current.plusMonths(properties.monthsAhead()));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,82 @@
+package zzpj_rent.reservation.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.ExpiryProperties;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Odrzuca rezerwacje PENDING starsze niż {@code reservation.expiry.pending-time-to-live}.
+ * Oczekujące rezerwacje nie blokują terminów, więc nie trzeba aktualizować indeksu dostępności ani kalendarza.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reservation.expiry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PendingExpiry {
+    public static final String EXPIRED = "reservation.expiry.expired";
+    public static final String CHUNKS = "reservation.expiry.chunks";
+    public static final String LAST_RUN = "reservation.expiry.last.run.expired";
+
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final ExpiryProperties properties;
+    private final Counter expired;
+    private final Timer chunks;
+    private final AtomicInteger lastRun = new AtomicInteger();
+
+    public PendingExpiry(ReservationBatchRepository reservationBatchRepository, ExpiryProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.reservationBatchRepository = reservationBatchRepository;
+        this.properties = properties;
+        this.expired = meterRegistry.counter(EXPIRED);
+        this.chunks = Timer.builder(CHUNKS).publishPercentileHistogram().register(meterRegistry);
+        meterRegistry.gauge(LAST_RUN, lastRun);
+    }
+
+    @Scheduled(initialDelayString = "${reservation.expiry.interval:15m}",
+            fixedDelayString = "${reservation.expiry.interval:15m}")
+    public int expirePending() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(properties.pendingTimeToLive());
+        int total = 0;
+        for (int chunk = 0; chunk < properties.maxChunksPerRun(); chunk++) {
+            if (chunk > 0 && !pause()) {
+                break;
+            }
+
+            int rejected = chunks.record(() -> reservationBatchRepository.expirePending(createdBefore,
+                    properties.chunkSize()));
+            expired.increment(rejected);
+            total += rejected;
+
+            if (rejected < properties.chunkSize()) {
+                break;
+            }
+        }
+
+        lastRun.set(total);
+        if (total > 0) {
+            log.info("Rejected {} pending reservations created before {}", total, createdBefore);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        if (properties.pause().isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(properties.pause());
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package zzpj_rent.reservation.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.PropertyCacheProperties;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.exceptions.NoPropertyException;
+import zzpj_rent.reservation.exceptions.ServiceUnavailableException;
+import zzpj_rent.reservation.microservices.ApartmentClient;
+import zzpj_rent.reservation.model.Property;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache przed {@link ApartmentClient}. Przechowuje tylko okrojony {@link Property},
+ * a statystyki (cache.gets, cache.evictions) są widoczne w actuatorze pod nazwą "properties".
+ * Osobno trzymamy ostatnią znaną wersję każdego mieszkania, z której korzystają odczyty,
+ * gdy serwis mieszkań jest niedostępny. Pobrania idą przez {@link ApartmentBatcher}.
+ */
+@Component
+public class PropertyCache {
+    public static final String LAST_KNOWN_SERVED = "reservation.properties.last.known.served";
+
+    private final ApartmentBatcher apartmentBatcher;
+    private final LoadingCache<Long, Property> cache;
+    private final Cache<Long, Property> lastKnown;
+    private final Counter lastKnownServed;
+
+    public PropertyCache(ApartmentBatcher apartmentBatcher, PropertyCacheProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.apartmentBatcher = apartmentBatcher;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.timeToLive())
+                .recordStats();
+        if (properties.refreshAfter() != null) {
+            builder.refreshAfterWrite(properties.refreshAfter());
+        }
+
+        this.cache = builder.build(new CacheLoader<>() {
+            @Override
+            public Property load(Long id) {
+                return fetch(id);
+            }
+
+            @Override
+            public Map<Long, Property> loadAll(Set<? extends Long> ids) {
+                return fetchAll(ids);
+            }
+        });
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.lastKnownTimeToLive())
+                .build();
+        this.lastKnownServed = Counter.builder(LAST_KNOWN_SERVED)
+                .description("Property reads answered from last known data while the listing service was down")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "properties");
+    }
+
+    public Property get(Long id) {
+        return cache.get(id);
+    }
+
+    // Tylko dla odczytów - zapisy (np. cena nowej rezerwacji) nie mogą opierać się na nieaktualnych danych
+    public Property getOrLastKnown(Long id) {
+        try {
+            return cache.get(id);
+        } catch (ServiceUnavailableException ex) {
+            Property property = lastKnown.getIfPresent(id);
+            if (property == null) {
+                throw ex;
+            }
+            lastKnownServed.increment();
+            return property;
+        }
+    }
+
+    // Ładuje brakujące mieszkania jedną paczką; błąd zgłosi dopiero get dla konkretnego ID
+    public void prefetch(Collection<Long> ids) {
+        try {
+            cache.getAll(ids);
+        } catch (RuntimeException _) {
+            // brakujące wpisy zostaną pobrane pojedynczo
+        }
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Property fetch(Long id) {
+        ApartmentDTO apartmentDto = apartmentBatcher.get(id);
+        if (apartmentDto == null) {
+            lastKnown.invalidate(id);
+            throw new NoPropertyException();
+        }
+        return remember(id, apartmentDto);
+    }
+
+    private Map<Long, Property> fetchAll(Set<? extends Long> ids) {
+        Map<Long, Property> properties = new HashMap<>();
+        apartmentBatcher.getAll(Set.copyOf(ids))
+                .forEach((id, apartmentDto) -> properties.put(id, remember(id, apartmentDto)));
+        return properties;
+    }
+
+    private Property remember(Long id, ApartmentDTO apartmentDto) {
+        Property property = new Property(apartmentDto.getId(), apartmentDto.getPrice(), apartmentDto.getRentalType(),
+                apartmentDto.getOwnerId());
+        lastKnown.put(id, property);
+        return property;
+    }
+}
@@ -0,0 +1,61 @@
+package zzpj_rent.reservation.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Paskowane blokady po ID mieszkania. Sprawdzenie dostępności i zapis rezerwacji dla jednego mieszkania
+ * wykonują się po kolei, a różne mieszkania (poza kolizjami skrótu) nie czekają na siebie.
+ * Chroni tylko w obrębie jednej instancji - między instancjami pilnuje ograniczenie w bazie.
+ */
+@Component
+public class PropertyLocks {
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public PropertyLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Long propertyId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(propertyId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Paski zajmujemy zawsze rosnąco, więc dwie paczki z tymi samymi mieszkaniami nie zakleszczą się
+    public <T> T withLocks(Collection<Long> propertyIds, Supplier<T> action) {
+        int[] stripes = propertyIds.stream().mapToInt(PropertyLocks::stripe).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(Long propertyId) {
+        return locks[stripe(propertyId)];
+    }
+
+    private static int stripe(Long propertyId) {
+        int hash = Long.hashCode(propertyId);
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
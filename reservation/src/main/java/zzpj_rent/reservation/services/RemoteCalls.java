@@ -0,0 +1,132 @@
+package zzpj_rent.reservation.services;
+
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.ResilienceProperties;
+import zzpj_rent.reservation.exceptions.ServiceUnavailableException;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker i bulkhead przed wywołaniami Feign, osobne dla każdego klienta. Bulkhead nie czeka
+ * na wolne miejsce, więc wolny serwis zajmuje najwyżej {@code maxConcurrentCalls} wątków Tomcata,
+ * a otwarty breaker odrzuca zapytania od razu. Za awarię uznajemy tylko 5xx i błędy połączenia
+ * (w tym przekroczenie limitu czasu); 404 i inne 4xx to poprawne odpowiedzi. Wywołanie przerwane
+ * z naszej strony (przerwanie wątku) nic nie mówi o zdrowiu serwisu, więc breaker je pomija.
+ */
+@Slf4j
+@Component
+public class RemoteCalls {
+    public static final String APARTMENTS = "Rental-listing-service";
+    public static final String USERS = "RENTLYAUTH";
+    public static final String TRANSITIONS = "reservation.remote.transitions";
+    public static final String REJECTED = "reservation.remote.rejected";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    public RemoteCalls(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.failureRateThreshold())
+                .slowCallRateThreshold(properties.slowCallRateThreshold())
+                .slowCallDurationThreshold(properties.slowCallDuration())
+                .slidingWindowSize(properties.slidingWindowSize())
+                .minimumNumberOfCalls(properties.minimumNumberOfCalls())
+                .waitDurationInOpenState(properties.waitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.permittedCallsInHalfOpenState())
+                .recordException(RemoteCalls::isOutage)
+                .ignoreException(ex -> ex instanceof BulkheadFullException || isInterrupted(ex))
+                .build());
+        this.bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.maxConcurrentCalls())
+                .maxWaitDuration(properties.maxWait())
+                .build());
+
+        circuitBreakers.getEventPublisher().onEntryAdded(event ->
+                event.getAddedEntry().getEventPublisher().onStateTransition(this::onTransition));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        // Tworzymy instancje od razu, żeby metryki były widoczne przed pierwszym wywołaniem
+        for (String client : List.of(APARTMENTS, USERS)) {
+            circuitBreakers.circuitBreaker(client);
+            bulkheads.bulkhead(client);
+        }
+    }
+
+    public <T> T call(String client, Supplier<T> call) {
+        Supplier<T> guarded = CircuitBreaker.decorateSupplier(circuitBreakers.circuitBreaker(client),
+                Bulkhead.decorateSupplier(bulkheads.bulkhead(client), call));
+        try {
+            return guarded.get();
+        } catch (CallNotPermittedException _) {
+            throw rejected(client, "circuit_open");
+        } catch (BulkheadFullException _) {
+            throw rejected(client, "bulkhead_full");
+        } catch (FeignException ex) {
+            if (isOutage(ex)) {
+                throw new ServiceUnavailableException(client);
+            }
+            throw ex;
+        }
+    }
+
+    public int maxConcurrentCalls(String client) {
+        return bulkheads.bulkhead(client).getBulkheadConfig().getMaxConcurrentCalls();
+    }
+
+    public CircuitBreaker.State state(String client) {
+        return circuitBreakers.circuitBreaker(client).getState();
+    }
+
+    private static boolean isOutage(Throwable ex) {
+        return (ex instanceof RetryableException || ex instanceof FeignException.FeignServerException)
+                && !isInterrupted(ex);
+    }
+
+    // Przerwany odczyt z gniazda Feign opakowuje w RetryableException; wirtualny wątek zostaje przy tym
+    // z ustawioną flagą przerwania, a zwykły dostaje InterruptedIOException w przyczynach
+    private static boolean isInterrupted(Throwable ex) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ServiceUnavailableException rejected(String client, String reason) {
+        meterRegistry.counter(REJECTED, "client", client, "reason", reason).increment();
+        return new ServiceUnavailableException(client);
+    }
+
+    private void onTransition(CircuitBreakerOnStateTransitionEvent event) {
+        CircuitBreaker.StateTransition transition = event.getStateTransition();
+        log.warn("Circuit breaker {} changed state: {} -> {}", event.getCircuitBreakerName(),
+                transition.getFromState(), transition.getToState());
+        meterRegistry.counter(TRANSITIONS, "client", event.getCircuitBreakerName(),
+                "from", transition.getFromState().name(), "to", transition.getToState().name()).increment();
+    }
+}
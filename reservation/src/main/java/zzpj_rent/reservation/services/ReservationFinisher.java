@@ -0,0 +1,78 @@
+package zzpj_rent.reservation.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.FinisherProperties;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationInterval;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Zmienia potwierdzone rezerwacje, których data końca minęła, na FINISHED.
+ * Wiersze przejmujemy porcjami z {@code FOR UPDATE SKIP LOCKED}, więc kilka instancji może
+ * działać jednocześnie bez czekania na siebie i bez kończenia tej samej rezerwacji dwa razy.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reservation.finisher", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReservationFinisher {
+    public static final String FINISHED = "reservation.finisher.finished";
+    public static final String CHUNKS = "reservation.finisher.chunks";
+    public static final String LAST_RUN = "reservation.finisher.last.run.finished";
+
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final CalendarCache calendarCache;
+    private final FinisherProperties properties;
+    private final Counter finished;
+    private final Timer chunks;
+    private final AtomicInteger lastRun = new AtomicInteger();
+
+    public ReservationFinisher(ReservationBatchRepository reservationBatchRepository,
+                               AvailabilityIndex availabilityIndex, CalendarCache calendarCache,
+                               FinisherProperties properties, MeterRegistry meterRegistry) {
+        this.reservationBatchRepository = reservationBatchRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.calendarCache = calendarCache;
+        this.properties = properties;
+        this.finished = meterRegistry.counter(FINISHED);
+        this.chunks = Timer.builder(CHUNKS).publishPercentileHistogram().register(meterRegistry);
+        meterRegistry.gauge(LAST_RUN, lastRun);
+    }
+
+    @Scheduled(initialDelayString = "${reservation.finisher.interval:5m}",
+            fixedDelayString = "${reservation.finisher.interval:5m}")
+    public int finishEnded() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        for (int chunk = 0; chunk < properties.maxChunksPerRun(); chunk++) {
+            List<ReservationInterval> ended = chunks.record(
+                    () -> reservationBatchRepository.finishEnded(today, properties.chunkSize()));
+
+            for (ReservationInterval interval : ended) {
+                availabilityIndex.remove(interval.id());
+                calendarCache.invalidate(interval.propertyId(), interval.startDate(), interval.endDate());
+            }
+            finished.increment(ended.size());
+            total += ended.size();
+
+            if (ended.size() < properties.chunkSize()) {
+                break;
+            }
+        }
+
+        lastRun.set(total);
+        if (total > 0) {
+            log.info("Finished {} reservations that ended before {}", total, today);
+        }
+        return total;
+    }
+}
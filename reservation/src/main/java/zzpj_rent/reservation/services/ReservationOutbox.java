@@ -0,0 +1,75 @@
+package zzpj_rent.reservation.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import zzpj_rent.reservation.dtos.response.ReservationEvent;
+import zzpj_rent.reservation.model.OutboxEvent;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Dopisuje zdarzenia rezerwacji do tabeli outboxa. Musi być wołany wewnątrz transakcji,
+ * która zmienia rezerwację - zdarzenie trafia do bazy wtedy i tylko wtedy, gdy zmiana zostanie zatwierdzona.
+ * Wysyłką zajmuje się {@link OutboxRelay}.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class ReservationOutbox {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectWriter writer;
+
+    public ReservationOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        // Daty jako "2030-01-01" niezależnie od konfiguracji ObjectMappera, tak jak json_build_object w bazie
+        this.writer = objectMapper.writer().without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    public void created(Reservation reservation) {
+        outboxEventRepository.save(event(OutboxEvent.Type.CREATED, reservation));
+    }
+
+    public void createdAll(Collection<Reservation> reservations) {
+        outboxEventRepository.saveAll(reservations.stream()
+                .map(reservation -> event(OutboxEvent.Type.CREATED, reservation))
+                .toList());
+    }
+
+    public void updated(Reservation reservation) {
+        outboxEventRepository.save(event(OutboxEvent.Type.UPDATED, reservation));
+    }
+
+    public void statusChanged(Reservation reservation) {
+        outboxEventRepository.save(event(OutboxEvent.Type.STATUS_CHANGED, reservation));
+    }
+
+    public void statusesChanged(Collection<Reservation> reservations) {
+        outboxEventRepository.saveAll(reservations.stream()
+                .map(reservation -> event(OutboxEvent.Type.STATUS_CHANGED, reservation))
+                .toList());
+    }
+
+    public void deleted(Reservation reservation) {
+        outboxEventRepository.save(event(OutboxEvent.Type.DELETED, reservation));
+    }
+
+    private OutboxEvent event(OutboxEvent.Type type, Reservation reservation) {
+        try {
+            return OutboxEvent.builder()
+                    .aggregateId(reservation.getId())
+                    .type(type)
+                    .payload(writer.writeValueAsString(ReservationEvent.of(reservation)))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize reservation event", ex);
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package zzpj_rent.reservation.services;
 
-import feign.FeignException;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import zzpj_rent.reservation.config.BatchProperties;
 import zzpj_rent.reservation.dtos.request.*;
+import zzpj_rent.reservation.dtos.response.BatchItemResponse;
+import zzpj_rent.reservation.dtos.response.CalendarResponse;
 import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.PageResponse;
+import zzpj_rent.reservation.dtos.response.RatingSummaryResponse;
 import zzpj_rent.reservation.dtos.response.ReservationResponse;
 import zzpj_rent.reservation.exceptions.*;
-import zzpj_rent.reservation.microservices.ApartmentClient;
-import zzpj_rent.reservation.microservices.UserClient;
 import zzpj_rent.reservation.model.Opinion;
 import zzpj_rent.reservation.model.Property;
 import zzpj_rent.reservation.model.Reservation;
 import zzpj_rent.reservation.model.User;
+import zzpj_rent.reservation.model.UserRatingSummary;
+import zzpj_rent.reservation.repository.ConfirmedOverlapConstraint;
 import zzpj_rent.reservation.repository.OpinionRepository;
+import zzpj_rent.reservation.repository.OpinionRow;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
 import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationRow;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.repository.UserRatingSummaryRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -24,225 +40,314 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.chrono.ChronoLocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @AllArgsConstructor
+@Timed(value = "reservation.service", histogram = true)
 public class ReservationService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String AVAILABILITY_CONFLICTS = "reservation.availability.conflicts";
+    public static final int MAX_CALENDAR_DAYS = 366;
+
     private final ReservationRepository reservationRepository;
     private final OpinionRepository opinionRepository;
-    private final ApartmentClient apartmentClient;
-    private final UserClient userClient;
+    private final AvailabilityIndex availabilityIndex;
+    private final PropertyCache propertyCache;
+    private final UserCache userCache;
+    private final ParallelLookups parallelLookups;
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final PropertyLocks propertyLocks;
+    private final CalendarCache calendarCache;
+    private final PropertyAvailabilityRepository propertyAvailabilityRepository;
+    private final UserRatingSummaryRepository userRatingSummaryRepository;
+    private final MeterRegistry meterRegistry;
+    private final ReservationOutbox reservationOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationViewRepository reservationViewRepository;
+    private final BatchProperties batchProperties;
 
     public Reservation createReservation(ReservationRequest request) {
         try {
-            if (request.getStartDate() == null || request.getEndDate() == null) {
-                throw new InvalidDateRangeException("Sart date and end date are required");
-            } else if (request.getStartDate().isAfter(request.getEndDate())) {
-                throw new InvalidDateRangeException("Start date cannot be after end date");
-            } else if (request.getStartDate().isBefore(ChronoLocalDate.from(LocalDateTime.now())) ||
-                    request.getEndDate().isBefore(ChronoLocalDate.from(LocalDateTime.now()))) {
-                throw new InvalidDateRangeException("Start date or end date cannot be in the past");
-            } else if (request.getStartDate().isEqual(request.getEndDate())) {
-                throw new InvalidDateRangeException("Start date and end date cannot be the same");
-            }
-
-            Property property = getProperty(request.getPropertyId());
-            User tenant = getTenant(request.getTenantId());
-
-            boolean isAvailable = reservationRepository
-                    .findByPropertyIdAndDateRangeOverlap(property.getId(), request.getStartDate(), request.getEndDate())
-                    .isEmpty();
+            validateNewDates(request.getStartDate(), request.getEndDate());
+
+            ParallelLookups.Pair<Property, User> lookup = parallelLookups.fetchBoth(
+                    () -> getProperty(request.getPropertyId()),
+                    () -> getTenant(request.getTenantId()));
+
+            return propertyLocks.withLock(lookup.first().getId(), () -> {
+                Reservation reservation = buildReservation(lookup.first(), lookup.second(),
+                        request.getStartDate(), request.getEndDate());
+                // Transakcja dopiero po pobraniach z innych serwisów, żeby nie trzymać połączenia z bazą
+                return transactionTemplate.execute(_ -> {
+                    Reservation saved = reservationRepository.save(reservation);
+                    reservationViewRepository.refresh(saved.getId());
+                    reservationOutbox.created(saved);
+                    return saved;
+                });
+            });
+        } catch (DataAccessException | NullPointerException _) {
+            throw new NotSpecifiedException("An error occurred while creating the reservation");
+        }
+    }
 
-            if (!isAvailable) {
-                throw new InvalidDateRangeException("Property is not available for the selected dates");
+    public List<BatchItemResponse> createReservations(List<ReservationRequest> requests) {
+        checkBatchSize(requests.size());
+        List<BatchItemResponse> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<Long, Lookup<Property>> properties = new HashMap<>();
+        Map<Long, Lookup<User>> tenants = new HashMap<>();
+
+        // Każde mieszkanie i najemcę pobieramy tylko raz dla całej paczki
+        propertyCache.prefetch(requests.stream().map(ReservationRequest::getPropertyId).filter(Objects::nonNull)
+                .toList());
+        for (ReservationRequest request : requests) {
+            if (request.getPropertyId() != null) {
+                properties.computeIfAbsent(request.getPropertyId(), id -> Lookup.of(() -> getProperty(id)));
             }
-
-            if (tenant.getId().equals(property.getOwnerId())) {
-                throw new OwnerException("Owner cannot reserve their own property");
+            if (request.getTenantId() != null) {
+                tenants.computeIfAbsent(request.getTenantId(), id -> Lookup.of(() -> getTenant(id)));
             }
+        }
 
-            Reservation reservation = Reservation.builder()
-                    .property(property)
-                    .tenant(tenant)
-                    .startDate(request.getStartDate())
-                    .endDate(request.getEndDate())
-                    .status(Reservation.Status.PENDING)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-
-            if (property.getRentalType().equals("DAILY")) {
-                reservation.setPayment(Reservation.Payment.ONE_TIME);
-                long days = ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate());
-                reservation.setPrice(
-                        property.getPrice().multiply(BigDecimal.valueOf(days).setScale(2, RoundingMode.HALF_UP))
-                );
-
-            } else {
-                reservation.setPayment(Reservation.Payment.MONTHLY);
-                reservation.setPrice(property.getPrice());
+        List<Integer> indexes = new ArrayList<>();
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ReservationRequest request = requests.get(i);
+            try {
+                validateNewDates(request.getStartDate(), request.getEndDate());
+                Property property = properties.get(request.getPropertyId()).get();
+                User tenant = tenants.get(request.getTenantId()).get();
+
+                reservations.add(buildReservation(property, tenant, request.getStartDate(), request.getEndDate()));
+                indexes.add(i);
+            } catch (ReservationException ex) {
+                results.set(i, BatchItemResponse.failed(i, ex));
+            } catch (NullPointerException _) {
+                results.set(i, BatchItemResponse.failed(i,
+                        new NotSpecifiedException("An error occurred while creating the reservation")));
             }
+        }
 
-            return reservationRepository.save(reservation);
-        } catch (DataAccessException | NullPointerException _) {
-            throw new NotSpecifiedException("An error occurred while creating the reservation");
+        try {
+            transactionTemplate.executeWithoutResult(_ -> {
+                reservationBatchRepository.insertAll(reservations);
+                reservationViewRepository.refresh(reservations.stream().map(Reservation::getId).toList());
+                reservationOutbox.createdAll(reservations);
+            });
+            for (int i = 0; i < reservations.size(); i++) {
+                results.set(indexes.get(i), BatchItemResponse.created(indexes.get(i), reservations.get(i).getId()));
+            }
+        } catch (DataAccessException _) {
+            NotSpecifiedException ex = new NotSpecifiedException("An error occurred while creating the reservation");
+            indexes.forEach(i -> results.set(i, BatchItemResponse.failed(i, ex)));
         }
+
+        return results;
     }
 
-    public List<ReservationResponse> getAllReservationsForTenant(Long id) {
-        return reservationRepository.findByTenantId(id).stream().map(res ->
-                ReservationResponse.builder()
-                        .id(res.getId())
-                        .tenantId(res.getTenant().getId())
-                        .tenantName(res.getTenant().getFirstName())
-                        .tenantSurname(res.getTenant().getLastName())
-                        .propertyId(res.getProperty().getId())
-                        .status(res.getStatus().name())
-                        .startDate(res.getStartDate())
-                        .endDate(res.getEndDate())
-                        .payment(res.getPayment().name())
-                        .price(res.getPrice())
-                        .build()).collect(Collectors.toList());
+    public PageResponse<ReservationResponse> getAllReservationsForTenant(Long id, String cursor, int limit) {
+        Limit pageLimit = pageLimit(limit);
+        List<ReservationRow> reservations;
+        if (cursor == null) {
+            reservations = reservationViewRepository.findRowsByTenantId(id, pageLimit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            reservations = reservationViewRepository
+                    .findRowsByTenantIdAfter(id, after.createdAt(), after.id(), pageLimit);
+        }
+        return toPage(reservations, pageLimit);
     }
 
-    public List<ReservationResponse> getAllReservationsForOwner(Long propertyId, Long ownerId) {
-        Property property = getProperty(propertyId);
+    public PageResponse<ReservationResponse> getAllReservationsForOwner(Long propertyId, Long ownerId,
+                                                                        String cursor, int limit) {
+        Property property = propertyCache.getOrLastKnown(propertyId);
 
         if (!property.getOwnerId().equals(ownerId)) {
             throw new OwnerException("You are not the owner of this property");
         }
 
-        return reservationRepository.findByPropertyId(propertyId).stream().map(res ->
-                        ReservationResponse.builder()
-                        .id(res.getId())
-                        .tenantId(res.getTenant().getId())
-                        .tenantName(res.getTenant().getFirstName())
-                        .tenantSurname(res.getTenant().getLastName())
-                        .propertyId(res.getProperty().getId())
-                        .status(res.getStatus().name())
-                        .startDate(res.getStartDate())
-                        .endDate(res.getEndDate())
-                        .payment(res.getPayment().name())
-                        .price(res.getPrice())
-                        .build()).collect(Collectors.toList());
-
+        Limit pageLimit = pageLimit(limit);
+        List<ReservationRow> reservations;
+        if (cursor == null) {
+            reservations = reservationViewRepository.findRowsByPropertyId(propertyId, pageLimit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            reservations = reservationViewRepository
+                    .findRowsByPropertyIdAfter(propertyId, after.createdAt(), after.id(), pageLimit);
+        }
+        return toPage(reservations, pageLimit);
     }
 
     public ReservationResponse getReservationByIdForTenant(Long id, Long tenantId) {
-        Reservation res = reservationRepository.findByIdAndTenantId(id, tenantId)
+        ReservationRow res = reservationViewRepository.findRowByIdAndTenantId(id, tenantId)
                 .orElseThrow(NoReservationException::new);
 
-        return ReservationResponse.builder()
-                .id(res.getId())
-                .tenantId(res.getTenant().getId())
-                .tenantName(res.getTenant().getFirstName())
-                .tenantSurname(res.getTenant().getLastName())
-                .propertyId(res.getProperty().getId())
-                .status(res.getStatus().name())
-                .startDate(res.getStartDate())
-                .endDate(res.getEndDate())
-                .payment(res.getPayment().name())
-                .price(res.getPrice())
-                .build();
+        return res.toResponse();
     }
 
     public ReservationResponse getReservationByIdForOwner(Long id, Long ownerId) {
-        Reservation res = reservationRepository.findById(id)
+        ReservationRow res = reservationViewRepository.findRowById(id)
                 .orElseThrow(NoPropertyException::new);
 
-        Property property = getProperty(res.getProperty().getId());
+        Property property = propertyCache.getOrLastKnown(res.propertyId());
 
         if (!property.getOwnerId().equals(ownerId)) {
             throw new OwnerException("You are not the owner of this property");
         }
 
-        return ReservationResponse.builder()
-                .id(res.getId())
-                .tenantId(res.getTenant().getId())
-                .tenantName(res.getTenant().getFirstName())
-                .tenantSurname(res.getTenant().getLastName())
-                .propertyId(res.getProperty().getId())
-                .status(res.getStatus().name())
-                .startDate(res.getStartDate())
-                .endDate(res.getEndDate())
-                .payment(res.getPayment().name())
-                .price(res.getPrice())
-                .build();
+        return res.toResponse();
     }
 
-    public List<ReservationResponse> getReservationsForTenantByStatus(Long id, Reservation.Status status) {
-        return reservationRepository.findByStatusAndTenantId(status, id).stream().map(res ->
-                ReservationResponse.builder()
-                        .id(res.getId())
-                        .tenantId(res.getTenant().getId())
-                        .tenantName(res.getTenant().getFirstName())
-                        .tenantSurname(res.getTenant().getLastName())
-                        .propertyId(res.getProperty().getId())
-                        .status(res.getStatus().name())
-                        .startDate(res.getStartDate())
-                        .endDate(res.getEndDate())
-                        .payment(res.getPayment().name())
-                        .price(res.getPrice())
-                        .build()).collect(Collectors.toList());
+    public PageResponse<ReservationResponse> getReservationsForTenantByStatus(Long id, Reservation.Status status,
+                                                                             String cursor, int limit) {
+        Limit pageLimit = pageLimit(limit);
+        List<ReservationRow> reservations;
+        if (cursor == null) {
+            reservations = reservationViewRepository.findRowsByTenantIdAndStatus(id, status, pageLimit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            reservations = reservationViewRepository
+                    .findRowsByTenantIdAndStatusAfter(id, status, after.createdAt(), after.id(), pageLimit);
+        }
+        return toPage(reservations, pageLimit);
+    }
+
+    public CalendarResponse getBookedDays(Long propertyId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new InvalidDateRangeException("Calendar window cannot be longer than " + MAX_CALENDAR_DAYS + " days");
+        }
+
+        BitSet booked = calendarCache.bookedDays(propertyId, from, to);
+        return new CalendarResponse(propertyId, from, to, Base64.getEncoder().encodeToString(booked.toByteArray()));
+    }
+
+    public List<Long> getAvailableProperties(AvailabilityRequest request) {
+        validateRange(request.getStartDate(), request.getEndDate());
+        if (request.getPropertyIds() == null) {
+            return List.of();
+        }
+
+        Set<Long> propertyIds = new LinkedHashSet<>(request.getPropertyIds());
+        propertyIds.remove(null);
+        return propertyAvailabilityRepository.findFreePropertyIds(propertyIds, request.getStartDate(),
+                request.getEndDate());
     }
 
     public String updateReservationStatus(Long id, Reservation.Status status) {
+        return updateReservationStatus(id, status, null);
+    }
+
+    // expectedVersion pochodzi z nagłówka If-Match; null oznacza zapis bez sprawdzania wersji
+    public String updateReservationStatus(Long id, Reservation.Status status, Long expectedVersion) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(NoReservationException::new);
+        checkVersion(reservation, expectedVersion);
 
-        switch (status) {
-            case CONFIRMED -> {
-                if (reservation.getStatus() != Reservation.Status.PENDING) {
-                    throw new ReservationStatusException("Reservation can only be accepted if it is pending");
-                } else {
-                    reservation.setStatus(Reservation.Status.CONFIRMED);
-                }
-            }
-            case REJECTED -> {
-                if (reservation.getStatus() != Reservation.Status.PENDING) {
-                    throw new ReservationStatusException("Reservation can only be rejected if it is pending");
-                } else {
-                    reservation.setStatus(Reservation.Status.REJECTED);
-                }
+        if (reservation.getStatus() != requiredStatus(status)) {
+            throw new ReservationStatusException(transitionError(status));
+        }
+        reservation.setStatus(status);
+
+        switch (reservation.getStatus()) {
+            case CONFIRMED -> confirm(reservation);
+            case FINISHED, CANCELLED -> {
+                saveWithEvent(reservation, reservationOutbox::statusChanged);
+                availabilityIndex.remove(reservation.getId());
+                calendarCache.invalidate(reservation.getProperty().getId(), reservation.getStartDate(),
+                        reservation.getEndDate());
             }
-            case FINISHED -> {
-                if (reservation.getStatus() != Reservation.Status.CONFIRMED) {
-                    throw new ReservationStatusException("Reservation can only be finished if it is accepted");
-                } else {
-                    reservation.setStatus(Reservation.Status.FINISHED);
-                }
+            // REJECTED nie blokuje terminu
+            default -> saveWithEvent(reservation, reservationOutbox::statusChanged);
+        }
+
+        return "Reservation status updated to " + reservation.getStatus();
+    }
+
+    public List<BatchItemResponse> updateReservationStatuses(StatusBatchRequest request) {
+        Reservation.Status status = request.getStatus();
+        Reservation.Status required = requiredStatus(status);
+        List<Long> ids = request.getIds() == null ? List.of() : request.getIds();
+        checkBatchSize(ids.size());
+        List<BatchItemResponse> results = new ArrayList<>(Collections.nCopies(ids.size(), null));
+
+        // Wszystkie rezerwacje z paczki pobieramy jednym zapytaniem, a przejścia sprawdzamy w pamięci
+        Map<Long, Reservation> found = new HashMap<>();
+        reservationRepository.findAllById(ids.stream().filter(Objects::nonNull).distinct().toList())
+                .forEach(reservation -> found.put(reservation.getId(), reservation));
+
+        Map<Integer, Reservation> targets = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            Reservation reservation = found.get(id);
+            if (reservation == null) {
+                results.set(i, BatchItemResponse.failed(i, id, new NoReservationException()));
+            } else if (!seen.add(id)) {
+                results.set(i, BatchItemResponse.failed(i, id,
+                        new ReservationStatusException("Reservation appears more than once in the batch")));
+            } else if (reservation.getStatus() != required) {
+                results.set(i, BatchItemResponse.failed(i, id, new ReservationStatusException(transitionError(status))));
+            } else {
+                targets.put(i, reservation);
             }
-            case CANCELLED -> {
-                if (reservation.getStatus() == Reservation.Status.CONFIRMED) {
-                    reservation.setStatus(Reservation.Status.CANCELLED);
-                } else {
-                    throw new ReservationStatusException("Reservation can only be cancelled if it is accepted");
+        }
+
+        if (status == Reservation.Status.CONFIRMED) {
+            Set<Long> propertyIds = new HashSet<>();
+            targets.values().forEach(reservation -> propertyIds.add(reservation.getProperty().getId()));
+            propertyLocks.withLocks(propertyIds, () -> confirmAll(targets, results));
+            return results;
+        }
+
+        try {
+            List<Reservation> updated = transactionTemplate.execute(_ -> writeStatuses(targets, status, results));
+            if (status == Reservation.Status.FINISHED || status == Reservation.Status.CANCELLED) {
+                for (Reservation reservation : updated) {
+                    availabilityIndex.remove(reservation.getId());
+                    calendarCache.invalidate(reservation.getProperty().getId(), reservation.getStartDate(),
+                            reservation.getEndDate());
                 }
             }
-            default ->
-                    throw new ReservationStatusException("Invalid reservation status");
+        } catch (DataAccessException _) {
+            failAll(targets, results, new NotSpecifiedException("An error occurred while updating the reservations"));
         }
-
-        reservationRepository.save(reservation);
-        return "Reservation status updated to " + reservation.getStatus();
+        return results;
     }
 
     public String deleteReservation(Long id, Long tenantId) {
+        return deleteReservation(id, tenantId, null);
+    }
+
+    public String deleteReservation(Long id, Long tenantId, Long expectedVersion) {
         Reservation reservation = reservationRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(NoReservationException::new);
+        checkVersion(reservation, expectedVersion);
 
         if (reservation.getStatus() != Reservation.Status.PENDING) {
             throw new ReservationStatusException("Cannot delete a processed reservation");
         }
 
-        reservationRepository.delete(reservation);
+        transactionTemplate.executeWithoutResult(_ -> {
+            reservationRepository.delete(reservation);
+            reservationViewRepository.deleteRows(List.of(reservation.getId()));
+            reservationOutbox.deleted(reservation);
+        });
+        availabilityIndex.remove(reservation.getId());
         return "Reservation deleted successfully";
     }
 
     public String updateReservation(Long id, Long tenantId, UpdateReservationRequest request) {
+        return updateReservation(id, tenantId, request, null);
+    }
+
+    public String updateReservation(Long id, Long tenantId, UpdateReservationRequest request, Long expectedVersion) {
         Reservation reservation = reservationRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(NoReservationException::new);
+        checkVersion(reservation, expectedVersion);
 
         LocalDate startDate;
         LocalDate endDate;
@@ -263,11 +368,11 @@ public class ReservationService {
             throw new ReservationStatusException("Cannot update a processed reservation");
         }
 
-        boolean isAvailable = reservationRepository
-                .findByPropertyIdAndDateRangeOverlap(reservation.getProperty().getId(), startDate, endDate)
-                .isEmpty();
+        boolean isAvailable = availabilityIndex
+                .isAvailable(reservation.getProperty().getId(), startDate, endDate);
 
         if (!isAvailable) {
+            meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "update").increment();
             throw new InvalidDateRangeException("Property is not available for the selected dates");
         }
 
@@ -290,7 +395,7 @@ public class ReservationService {
             );
         }
 
-        reservationRepository.save(reservation);
+        saveWithEvent(reservation, reservationOutbox::updated);
         return "Reservation updated successfully";
 
     }
@@ -328,20 +433,50 @@ public class ReservationService {
                 .creator(creator)
                 .build();
 
-        return opinionRepository.save(opinion);
+        // Transakcja dopiero po pobraniu użytkownika z innego serwisu, jak w createReservation
+        return transactionTemplate.execute(_ -> {
+            Opinion saved = opinionRepository.save(opinion);
+            userRatingSummaryRepository.addRating(user.getId(), saved.getRating(), 1);
+            return saved;
+        });
+    }
+
+    public PageResponse<OpinionResponse> getAllOpinionsByUser(Long userId, String cursor, int limit) {
+        Limit pageLimit = pageLimit(limit);
+        List<OpinionRow> opinions;
+        if (cursor == null) {
+            opinions = opinionRepository.findRowsByUserId(userId, pageLimit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            opinions = opinionRepository.findRowsByUserIdAfter(userId, after.createdAt(), after.id(), pageLimit);
+        }
+        return toPage(opinions, pageLimit, row -> new KeysetCursor(row.createdAt(), row.id()), OpinionRow::toResponse);
+    }
+
+    public RatingSummaryResponse getRatingSummary(Long userId) {
+        return RatingSummaryResponse.of(userRatingSummaryRepository.findById(userId)
+                .orElseGet(() -> UserRatingSummary.builder().userId(userId).build()));
     }
 
-    public List<OpinionResponse> getAllOpinionsByUser(Long userId) {
-        return opinionRepository.findAllByUser_Id(userId).stream().map(o ->
-                OpinionResponse.builder()
-                        .id(o.getId())
-                        .content(o.getContent())
-                        .rating(o.getRating())
-                        .firstName(o.getUser().getFirstName())
-                        .lastName(o.getUser().getLastName())
-                        .build()).collect(Collectors.toList());
+    // Przelicza podsumowania od zera na podstawie tabeli opinions, np. po pierwszym wdrożeniu
+    @Transactional
+    public String rebuildRatingSummaries() {
+        userRatingSummaryRepository.lockOpinions();
+        userRatingSummaryRepository.deleteAllInBatch();
+        int users = userRatingSummaryRepository.insertFromOpinions();
+        return "Rebuilt rating summaries for " + users + " users";
     }
 
+    // Przepisuje reservation_view od zera z tabeli reservations, np. po ręcznej poprawce danych; pierwsze wypełnienie robi migracja V6
+    @Transactional
+    public String rebuildReservationView() {
+        reservationViewRepository.lockReservations();
+        reservationViewRepository.deleteAllInBatch();
+        int reservations = reservationViewRepository.insertAllRows();
+        return "Rebuilt reservation view for " + reservations + " reservations";
+    }
+
+    @Transactional
     public String deleteOpinion(Long userId, Long opinionId) {
         Opinion opinion = opinionRepository.findById(opinionId).orElseThrow(NoOpinionException::new);
 
@@ -350,30 +485,258 @@ public class ReservationService {
         }
 
         opinionRepository.delete(opinion);
+        userRatingSummaryRepository.addRating(opinion.getUser().getId(), opinion.getRating(), -1);
         return "Pomyślnie usunięto opinię";
     }
 
     public Property getProperty(Long id) {
-        ApartmentDTO apartmentDto;
-        try {
-            apartmentDto = apartmentClient.getApartmentById(id);
-        } catch (FeignException.NotFound _) {
-            throw new NoPropertyException();
-        }
-        return  new Property(apartmentDto.getId(), apartmentDto.getPrice(), apartmentDto.getRentalType(),
-                apartmentDto.getOwnerId());
+        return propertyCache.get(id);
     }
 
     public User getTenant(Long id) {
-        UserDTO userDto;
+        return userCache.get(id);
+    }
+
+    // Sprawdzenie, zapis i dopisanie do indeksu pod blokadą mieszkania, żeby dwie nachodzące się
+    // rezerwacje nie zostały potwierdzone równolegle
+    private void confirm(Reservation reservation) {
+        Long propertyId = reservation.getProperty().getId();
+        propertyLocks.withLock(propertyId, () -> {
+            if (!availabilityIndex.isAvailable(propertyId, reservation.getStartDate(), reservation.getEndDate())) {
+                meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "confirm").increment();
+                throw new InvalidDateRangeException("Property is not available for the selected dates");
+            }
+
+            try {
+                saveWithEvent(reservation, reservationOutbox::statusChanged);
+            } catch (DataIntegrityViolationException ex) {
+                if (!ConfirmedOverlapConstraint.isViolation(ex)) {
+                    throw ex;
+                }
+                meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "confirm").increment();
+                throw new InvalidDateRangeException("Property is not available for the selected dates");
+            }
+
+            availabilityIndex.add(reservation);
+            calendarCache.invalidate(propertyId, reservation.getStartDate(), reservation.getEndDate());
+            return reservation;
+        });
+    }
+
+    // Wywoływane pod blokadami wszystkich mieszkań z paczki
+    private List<Reservation> confirmAll(Map<Integer, Reservation> targets, List<BatchItemResponse> results) {
+        // Z dwóch nachodzących się rezerwacji z jednej paczki przechodzi tylko pierwsza. Do indeksu trafiają dopiero
+        // po zapisie, bo przy kolizji indeks sprawdza bazę i usunąłby niezapisane jeszcze przedziały
+        Map<Integer, Reservation> available = new LinkedHashMap<>();
+        targets.forEach((index, reservation) -> {
+            if (!overlapsAny(available.values(), reservation) && availabilityIndex.isAvailable(
+                    reservation.getProperty().getId(), reservation.getStartDate(), reservation.getEndDate())) {
+                available.put(index, reservation);
+            } else {
+                meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "confirm").increment();
+                results.set(index, BatchItemResponse.failed(index, reservation.getId(),
+                        new InvalidDateRangeException("Property is not available for the selected dates")));
+            }
+        });
+
         try {
-            userDto = userClient.getUserById(id);
-        } catch (FeignException.NotFound _) {
-            throw new NoTenantException();
+            List<Reservation> updated = transactionTemplate.execute(_ ->
+                    writeStatuses(available, Reservation.Status.CONFIRMED, results));
+            updated.forEach(reservation -> {
+                availabilityIndex.add(reservation);
+                calendarCache.invalidate(reservation.getProperty().getId(), reservation.getStartDate(),
+                        reservation.getEndDate());
+            });
+            return updated;
+        } catch (DataAccessException ex) {
+            if (ConfirmedOverlapConstraint.isViolation(ex)) {
+                meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "confirm").increment(available.size());
+                failAll(available, results, new InvalidDateRangeException("Property is not available for the selected dates"));
+            } else {
+                failAll(available, results, new NotSpecifiedException("An error occurred while updating the reservations"));
+            }
+            return List.of();
+        }
+    }
+
+    // Zapis rezerwacji razem z wierszem reservation_view i zdarzeniem w outboxie. Flush jeszcze w transakcji,
+    // żeby naruszenie ograniczenia albo nieaktualna wersja wyszły tutaj, a widok i zdarzenie miały wersję po zapisie
+    private Reservation saveWithEvent(Reservation reservation, Consumer<Reservation> event) {
+        return transactionTemplate.execute(_ -> {
+            Reservation saved = reservationRepository.saveAndFlush(reservation);
+            reservationViewRepository.refresh(reservation.getId());
+            event.accept(saved);
+            return saved;
+        });
+    }
+
+    // Zapis jednym batchem razem ze zdarzeniami; zwraca rezerwacje, którym faktycznie zmienił się status.
+    // Wywoływane w transakcji
+    private List<Reservation> writeStatuses(Map<Integer, Reservation> targets, Reservation.Status status,
+                                            List<BatchItemResponse> results) {
+        int[] counts = reservationBatchRepository.updateStatuses(List.copyOf(targets.values()),
+                requiredStatus(status), status);
+
+        List<Reservation> updated = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<Integer, Reservation> target : targets.entrySet()) {
+            int index = target.getKey();
+            Reservation reservation = target.getValue();
+            if (counts[i++] > 0) {
+                reservation.setStatus(status);
+                reservation.setVersion(reservation.getVersion() + 1);
+                updated.add(reservation);
+                results.set(index, BatchItemResponse.updated(index, reservation.getId(),
+                        "Reservation status updated to " + status));
+            } else {
+                // Status zmienił się między odczytem a zapisem
+                results.set(index, BatchItemResponse.failed(index, reservation.getId(),
+                        new ReservationStatusException(transitionError(status))));
+            }
+        }
+        reservationViewRepository.refresh(updated.stream().map(Reservation::getId).toList());
+        reservationOutbox.statusesChanged(updated);
+        return updated;
+    }
+
+    private static void failAll(Map<Integer, Reservation> targets, List<BatchItemResponse> results,
+                                ReservationException ex) {
+        targets.forEach((index, reservation) -> results.set(index, BatchItemResponse.failed(index, reservation.getId(), ex)));
+    }
+
+    private static boolean overlapsAny(Collection<Reservation> accepted, Reservation reservation) {
+        return accepted.stream().anyMatch(other -> other.getProperty().getId().equals(reservation.getProperty().getId())
+                && !other.getStartDate().isAfter(reservation.getEndDate())
+                && !other.getEndDate().isBefore(reservation.getStartDate()));
+    }
+
+    // Status, z którego wolno przejść do podanego
+    private static Reservation.Status requiredStatus(Reservation.Status status) {
+        return switch (status) {
+            case CONFIRMED, REJECTED -> Reservation.Status.PENDING;
+            case FINISHED, CANCELLED -> Reservation.Status.CONFIRMED;
+            case null, default -> throw new ReservationStatusException("Invalid reservation status");
+        };
+    }
+
+    private static String transitionError(Reservation.Status status) {
+        return switch (status) {
+            case CONFIRMED -> "Reservation can only be accepted if it is pending";
+            case REJECTED -> "Reservation can only be rejected if it is pending";
+            case FINISHED -> "Reservation can only be finished if it is accepted";
+            case CANCELLED -> "Reservation can only be cancelled if it is accepted";
+            default -> "Invalid reservation status";
+        };
+    }
+
+    // Sam zapis i tak sprawdza wersję (WHERE version = ?), tu odrzucamy nieaktualne żądanie przed walidacją
+    private static void checkVersion(Reservation reservation, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != reservation.getVersion()) {
+            throw new PreconditionFailedException();
         }
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new InvalidDateRangeException("Sart date and end date are required");
+        } else if (from.isAfter(to)) {
+            throw new InvalidDateRangeException("Start date cannot be after end date");
+        }
+    }
 
-        return new User(userDto.getId(), userDto.getUsername(), userDto.getEmail(),
-                userDto.getFirstName(), userDto.getLastName());
+    private void validateNewDates(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new InvalidDateRangeException("Sart date and end date are required");
+        } else if (startDate.isAfter(endDate)) {
+            throw new InvalidDateRangeException("Start date cannot be after end date");
+        } else if (startDate.isBefore(ChronoLocalDate.from(LocalDateTime.now())) ||
+                endDate.isBefore(ChronoLocalDate.from(LocalDateTime.now()))) {
+            throw new InvalidDateRangeException("Start date or end date cannot be in the past");
+        } else if (startDate.isEqual(endDate)) {
+            throw new InvalidDateRangeException("Start date and end date cannot be the same");
+        }
+    }
+
+    private Reservation buildReservation(Property property, User tenant, LocalDate startDate, LocalDate endDate) {
+        boolean isAvailable = availabilityIndex.isAvailable(property.getId(), startDate, endDate);
+
+        if (!isAvailable) {
+            meterRegistry.counter(AVAILABILITY_CONFLICTS, "operation", "create").increment();
+            throw new InvalidDateRangeException("Property is not available for the selected dates");
+        }
+
+        if (tenant.getId().equals(property.getOwnerId())) {
+            throw new OwnerException("Owner cannot reserve their own property");
+        }
+
+        Reservation reservation = Reservation.builder()
+                .property(property)
+                .tenant(tenant)
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(Reservation.Status.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        if (property.getRentalType().equals("DAILY")) {
+            reservation.setPayment(Reservation.Payment.ONE_TIME);
+            long days = ChronoUnit.DAYS.between(startDate, endDate);
+            reservation.setPrice(
+                    property.getPrice().multiply(BigDecimal.valueOf(days).setScale(2, RoundingMode.HALF_UP))
+            );
+
+        } else {
+            reservation.setPayment(Reservation.Payment.MONTHLY);
+            reservation.setPrice(property.getPrice());
+        }
+
+        return reservation;
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > batchProperties.maxSize()) {
+            throw new BatchTooLargeException(batchProperties.maxSize());
+        }
+    }
+
+    // Pobieramy o jeden wiersz więcej niż strona, żeby wiedzieć czy istnieje następna
+    private static Limit pageLimit(int limit) {
+        return Limit.of(Math.clamp(limit, 1, MAX_PAGE_SIZE) + 1);
+    }
+
+    private static PageResponse<ReservationResponse> toPage(List<ReservationRow> reservations, Limit pageLimit) {
+        return toPage(reservations, pageLimit, row -> new KeysetCursor(row.createdAt(), row.id()),
+                ReservationRow::toResponse);
+    }
+
+    private static <R, T> PageResponse<T> toPage(List<R> rows, Limit pageLimit, Function<R, KeysetCursor> cursorOf,
+                                                 Function<R, T> mapper) {
+        int pageSize = pageLimit.max() - 1;
+        boolean hasNext = rows.size() > pageSize;
+        List<R> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasNext ? cursorOf.apply(page.getLast()).encode() : null;
+        return new PageResponse<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    // Wynik pobrania dla paczki: obiekt albo wyjątek, który trzeba przypisać do każdej pozycji
+    private record Lookup<T>(T value, ReservationException error) {
+        private static <T> Lookup<T> of(Supplier<T> supplier) {
+            try {
+                return new Lookup<>(supplier.get(), null);
+            } catch (ReservationException ex) {
+                return new Lookup<>(null, ex);
+            } catch (DataAccessException | NullPointerException _) {
+                return new Lookup<>(null, new NotSpecifiedException("An error occurred while creating the reservation"));
+            }
+        }
+
+        private T get() {
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
     }
 
 }
@@ -0,0 +1,48 @@
+package zzpj_rent.reservation.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.ViewNamesProperties;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+
+/**
+ * Przepisuje imiona i nazwiska najemców z {@code users_entity} do {@code reservation_view}.
+ * Każdy fragment identyfikatorów idzie we własnej transakcji i zmienia tylko wiersze, w których dane się różnią.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reservation.view-names", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TenantNameSync {
+    public static final String UPDATED = "reservation.view.names.updated";
+
+    private final ReservationViewRepository reservationViewRepository;
+    private final ViewNamesProperties properties;
+    private final Counter updated;
+
+    public TenantNameSync(ReservationViewRepository reservationViewRepository, ViewNamesProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.reservationViewRepository = reservationViewRepository;
+        this.properties = properties;
+        this.updated = meterRegistry.counter(UPDATED);
+    }
+
+    @Scheduled(initialDelayString = "${reservation.view-names.interval:10m}",
+            fixedDelayString = "${reservation.view-names.interval:10m}")
+    public int refreshNames() {
+        long maxId = reservationViewRepository.findMaxId().orElse(0L);
+        int total = 0;
+        for (long from = 0; from < maxId; from += properties.chunkSize()) {
+            total += reservationViewRepository.refreshTenantNames(from, from + properties.chunkSize());
+        }
+
+        updated.increment(total);
+        if (total > 0) {
+            log.info("Refreshed tenant names in {} reservation view rows", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,73 @@
+package zzpj_rent.reservation.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import zzpj_rent.reservation.config.UserCacheProperties;
+import zzpj_rent.reservation.dtos.request.UserDTO;
+import zzpj_rent.reservation.exceptions.NoTenantException;
+import zzpj_rent.reservation.microservices.UserClient;
+import zzpj_rent.reservation.model.User;
+
+import java.util.Optional;
+
+/**
+ * Cache przed {@link UserClient}. Odpowiedź 404 z RENTLYAUTH też jest zapamiętywana (jako pusty
+ * {@link Optional}) na krótszy czas, żeby powtarzane błędne ID nie obciążały serwisu autoryzacji.
+ */
+@Component
+public class UserCache {
+    private final UserClient userClient;
+    private final RemoteCalls remoteCalls;
+    private final LoadingCache<Long, Optional<User>> cache;
+    private final Counter notFoundCounter;
+
+    public UserCache(UserClient userClient, UserCacheProperties properties, RemoteCalls remoteCalls,
+                     MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.remoteCalls = remoteCalls;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(Expiry.writing((Long _, Optional<User> user) ->
+                        user.isPresent() ? properties.timeToLive() : properties.notFoundTimeToLive()))
+                .recordStats()
+                .build(this::fetch);
+        this.notFoundCounter = Counter.builder("reservation.users.not.found")
+                .description("User lookups answered with a cached or fresh 404")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public User get(Long id) {
+        Optional<User> user = cache.get(id);
+        if (user.isEmpty()) {
+            notFoundCounter.increment();
+            throw new NoTenantException();
+        }
+        return user.get();
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Optional<User> fetch(Long id) {
+        UserDTO userDto;
+        try {
+            userDto = remoteCalls.call(RemoteCalls.USERS, () -> userClient.getUserById(id));
+        } catch (FeignException.NotFound _) {
+            return Optional.empty();
+        }
+        return Optional.of(new User(userDto.getId(), userDto.getUsername(), userDto.getEmail(),
+                userDto.getFirstName(), userDto.getLastName()));
+    }
+}
@@ -0,0 +1,45 @@
+-- Schemat w postaci, w jakiej generował go Hibernate (ddl-auto) przed wprowadzeniem migracji. Istniejące bazy
+-- są oznaczane tą wersją bez jej uruchamiania (spring.flyway.baseline-on-migrate), dlatego nazwy kluczy obcych
+-- zostają takie, jakie nadał im Hibernate, a wszystko, co doszło później, zakładają kolejne migracje.
+
+CREATE TABLE apartment (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    price       numeric(38, 2),
+    rental_type varchar(255),
+    owner_id    bigint
+);
+
+CREATE TABLE users_entity (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username   varchar(255),
+    email      varchar(255),
+    first_name varchar(255),
+    last_name  varchar(255)
+);
+
+CREATE TABLE reservations (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    property_id bigint       NOT NULL,
+    tenant_id   bigint       NOT NULL,
+    start_date  date,
+    end_date    date,
+    status      varchar(255) NOT NULL
+        CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'REJECTED', 'FINISHED')),
+    created_at  timestamp(6) NOT NULL,
+    payment     varchar(255) CHECK (payment IN ('MONTHLY', 'ONE_TIME')),
+    price       numeric(38, 2)
+);
+
+CREATE TABLE opinions (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content    varchar(255),
+    rating     integer      NOT NULL,
+    creator_id bigint       NOT NULL,
+    user_id    bigint       NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
+
+ALTER TABLE opinions ADD CONSTRAINT fkr1xey6rontjwjv5euqvt1iteh FOREIGN KEY (creator_id) REFERENCES users_entity;
+ALTER TABLE opinions ADD CONSTRAINT fksiw3sysu3shy77u756rmhpfod FOREIGN KEY (user_id) REFERENCES users_entity;
+ALTER TABLE reservations ADD CONSTRAINT fk2rr5vk6he9194g6dm9jk83k5w FOREIGN KEY (property_id) REFERENCES apartment;
+ALTER TABLE reservations ADD CONSTRAINT fke2t28dgis2i2spy4b09jfs2oc FOREIGN KEY (tenant_id) REFERENCES users_entity;
@@ -0,0 +1,67 @@
+-- Kolumny, tabele i indeksy dodane po schemacie bazowym. Wcześniej zakładał je Hibernate (ddl-auto: update
+-- i adnotacje @Index), więc na bazach, które działały na tych wersjach, część z nich może już być.
+
+-- Wersja rezerwacji, udostępniana klientom jako ETag
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS version bigint;
+UPDATE reservations SET version = 0 WHERE version IS NULL;
+ALTER TABLE reservations ALTER COLUMN version SET DEFAULT 0, ALTER COLUMN version SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS user_rating_summary (
+    user_id      bigint NOT NULL PRIMARY KEY,
+    rating_sum   bigint NOT NULL,
+    rating_count bigint NOT NULL,
+    rating_0     bigint,
+    rating_1     bigint,
+    rating_2     bigint,
+    rating_3     bigint,
+    rating_4     bigint,
+    rating_5     bigint
+);
+
+-- Podsumowania ocen dla użytkowników, którzy nie mają jeszcze wiersza; istniejące prowadzi już aplikacja
+INSERT INTO user_rating_summary
+    (user_id, rating_sum, rating_count, rating_0, rating_1, rating_2, rating_3, rating_4, rating_5)
+SELECT user_id, SUM(rating), COUNT(*),
+       SUM(CASE WHEN rating = 0 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END)
+FROM opinions
+GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS reservation_outbox (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id bigint       NOT NULL,
+    type         varchar(255) NOT NULL CHECK (type IN ('CREATED', 'UPDATED', 'STATUS_CHANGED', 'DELETED')),
+    payload      text         NOT NULL,
+    created_at   timestamp(6) NOT NULL
+);
+
+-- Wypełnia ją migracja V6
+CREATE TABLE IF NOT EXISTS reservation_view (
+    id             bigint       NOT NULL PRIMARY KEY,
+    property_id    bigint       NOT NULL,
+    tenant_id      bigint       NOT NULL,
+    tenant_name    varchar(255),
+    tenant_surname varchar(255),
+    start_date     date,
+    end_date       date,
+    status         varchar(255) NOT NULL
+        CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'REJECTED', 'FINISHED')),
+    payment        varchar(255) CHECK (payment IN ('MONTHLY', 'ONE_TIME')),
+    price          numeric(38, 2),
+    created_at     timestamp(6) NOT NULL,
+    version        bigint       NOT NULL
+);
+
+-- Indeksy (status, end_date) i (status, created_at) zastępuje V4, więc tu ich nie ma
+CREATE INDEX IF NOT EXISTS idx_reservations_tenant_created ON reservations (tenant_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_tenant_status_created ON reservations (tenant_id, status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_property_created ON reservations (property_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_property_status_dates
+    ON reservations (property_id, status, start_date, end_date);
+CREATE INDEX IF NOT EXISTS idx_opinions_user_created ON opinions (user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservation_view_tenant_created ON reservation_view (tenant_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservation_view_tenant_status_created
+    ON reservation_view (tenant_id, status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservation_view_property_created ON reservation_view (property_id, created_at, id);
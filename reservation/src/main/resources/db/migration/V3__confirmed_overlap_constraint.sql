@@ -0,0 +1,14 @@
+-- Dwie potwierdzone rezerwacje tego samego mieszkania nie mogą mieć nachodzących się dat.
+-- Przedział domknięty z obu stron, jak w ReservationRepository.findByPropertyIdAndDateRangeOverlap.
+-- Wcześniej ograniczenie zakładała aplikacja przy starcie, więc na istniejących bazach może już być.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'reservations_confirmed_no_overlap') THEN
+        ALTER TABLE reservations ADD CONSTRAINT reservations_confirmed_no_overlap
+            EXCLUDE USING gist (property_id WITH =, daterange(start_date, end_date, '[]') WITH &&)
+            WHERE (status = 'CONFIRMED');
+    END IF;
+END
+$$;
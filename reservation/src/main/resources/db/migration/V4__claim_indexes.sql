@@ -0,0 +1,8 @@
+-- ReservationFinisher i PendingExpiry przejmują porcje wierszy w kolejności (end_date, id) i (created_at, id)
+-- dla jednego statusu. Indeksy częściowe obejmują tylko te wiersze i dają gotową kolejność dla LIMIT,
+-- więc zastępują indeksy (status, end_date) i (status, created_at).
+CREATE INDEX IF NOT EXISTS idx_reservations_confirmed_end ON reservations (end_date, id) WHERE status = 'CONFIRMED';
+CREATE INDEX IF NOT EXISTS idx_reservations_pending_created ON reservations (created_at, id) WHERE status = 'PENDING';
+
+DROP INDEX IF EXISTS idx_reservations_status_end;
+DROP INDEX IF EXISTS idx_reservations_status_created;
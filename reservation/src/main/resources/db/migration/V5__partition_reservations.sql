@@ -0,0 +1,113 @@
+-- Tabela reservations partycjonowana miesięcznie po start_date. Istniejące wiersze są przepisywane
+-- do nowej tabeli w tej samej transakcji, więc na czas migracji zapisy rezerwacji są wstrzymane.
+-- Kolejne miesiące z wyprzedzeniem zakłada PartitionMaintenance; wiersze spoza istniejących partycji
+-- trafiają do reservations_default i są przenoszone, gdy powstanie ich miesiąc.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM reservations WHERE start_date IS NULL) THEN
+        RAISE EXCEPTION 'Reservations without start_date cannot be partitioned, set their dates first';
+    END IF;
+END
+$$;
+
+LOCK TABLE reservations IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE reservations RENAME TO reservations_unpartitioned;
+ALTER TABLE reservations_unpartitioned RENAME CONSTRAINT reservations_pkey TO reservations_unpartitioned_pkey;
+ALTER TABLE reservations_unpartitioned DROP CONSTRAINT IF EXISTS reservations_confirmed_no_overlap;
+
+-- Tabela partycjonowana w Postgresie 15 nie może mieć kolumny IDENTITY, więc id bierze wartości
+-- ze zwykłej sekwencji; OWNED BY utrzymuje pg_get_serial_sequence('reservations', 'id')
+ALTER TABLE reservations_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE reservations_id_seq;
+
+-- Klucz główny musi zawierać klucz partycjonowania
+CREATE TABLE reservations (
+    id          bigint       NOT NULL DEFAULT nextval('reservations_id_seq'),
+    property_id bigint       NOT NULL,
+    tenant_id   bigint       NOT NULL,
+    start_date  date         NOT NULL,
+    end_date    date,
+    status      varchar(255) NOT NULL
+        CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'REJECTED', 'FINISHED')),
+    created_at  timestamp(6) NOT NULL,
+    payment     varchar(255) CHECK (payment IN ('MONTHLY', 'ONE_TIME')),
+    price       numeric(38, 2),
+    version     bigint DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id, start_date),
+    CONSTRAINT fk2rr5vk6he9194g6dm9jk83k5w FOREIGN KEY (property_id) REFERENCES apartment,
+    CONSTRAINT fke2t28dgis2i2spy4b09jfs2oc FOREIGN KEY (tenant_id) REFERENCES users_entity
+) PARTITION BY RANGE (start_date);
+
+ALTER SEQUENCE reservations_id_seq OWNED BY reservations.id;
+
+CREATE TABLE reservations_default PARTITION OF reservations DEFAULT;
+
+-- Miesiące od najstarszej rezerwacji do najpóźniejszej, co najmniej bieżący
+DO $$
+DECLARE
+    month date;
+BEGIN
+    FOR month IN
+        SELECT generate_series(date_trunc('month', least(min(start_date), current_date)),
+                               date_trunc('month', greatest(max(start_date), current_date)),
+                               interval '1 month')::date
+        FROM reservations_unpartitioned
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF reservations FOR VALUES FROM (%L) TO (%L)',
+                       'reservations_p' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+    END LOOP;
+END
+$$;
+
+INSERT INTO reservations (id, property_id, tenant_id, start_date, end_date, status, created_at, payment, price, version)
+SELECT id, property_id, tenant_id, start_date, end_date, status, created_at, payment, price, version
+FROM reservations_unpartitioned;
+
+SELECT setval('reservations_id_seq', coalesce((SELECT max(id) FROM reservations_unpartitioned), 0) + 1, false);
+
+DROP TABLE reservations_unpartitioned;
+
+-- Indeksy zakładane po przepisaniu danych; Postgres tworzy je w każdej partycji
+CREATE INDEX idx_reservations_tenant_created ON reservations (tenant_id, created_at, id);
+CREATE INDEX idx_reservations_tenant_status_created ON reservations (tenant_id, status, created_at, id);
+CREATE INDEX idx_reservations_property_created ON reservations (property_id, created_at, id);
+CREATE INDEX idx_reservations_property_status_dates ON reservations (property_id, status, start_date, end_date);
+CREATE INDEX idx_reservations_confirmed_end ON reservations (end_date, id) WHERE status = 'CONFIRMED';
+CREATE INDEX idx_reservations_pending_created ON reservations (created_at, id) WHERE status = 'PENDING';
+
+-- Ograniczenie wykluczające na tabeli partycjonowanej obejmowałoby tylko jedną partycję, a pobyt
+-- może przechodzić przez granicę miesiąca. Przedziały potwierdzonych rezerwacji trzyma więc osobna,
+-- mała tabela z tym samym ograniczeniem, uzupełniana wyzwalaczem przy każdej zmianie rezerwacji.
+CREATE TABLE reservation_confirmed_ranges (
+    reservation_id bigint    NOT NULL PRIMARY KEY,
+    property_id    bigint    NOT NULL,
+    during         daterange NOT NULL,
+    CONSTRAINT reservations_confirmed_no_overlap EXCLUDE USING gist (property_id WITH =, during WITH &&)
+);
+
+INSERT INTO reservation_confirmed_ranges (reservation_id, property_id, during)
+SELECT id, property_id, daterange(start_date, end_date, '[]')
+FROM reservations
+WHERE status = 'CONFIRMED';
+
+-- Przeniesienie wiersza między partycjami to DELETE i INSERT, więc wystarczą te trzy zdarzenia
+CREATE FUNCTION reservations_sync_confirmed_ranges() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM reservation_confirmed_ranges WHERE reservation_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.status = 'CONFIRMED' THEN
+        INSERT INTO reservation_confirmed_ranges (reservation_id, property_id, during)
+        VALUES (NEW.id, NEW.property_id, daterange(NEW.start_date, NEW.end_date, '[]'));
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER reservations_confirmed_ranges
+    AFTER INSERT OR UPDATE OR DELETE ON reservations
+    FOR EACH ROW EXECUTE FUNCTION reservations_sync_confirmed_ranges();
@@ -0,0 +1,8 @@
+-- Wypełnia reservation_view dla rezerwacji sprzed wprowadzenia widoku; istniejące wiersze zostają bez zmian
+INSERT INTO reservation_view (id, property_id, tenant_id, tenant_name, tenant_surname, start_date, end_date,
+                              status, payment, price, created_at, version)
+SELECT r.id, r.property_id, r.tenant_id, t.first_name, t.last_name, r.start_date, r.end_date,
+       r.status, r.payment, r.price, r.created_at, r.version
+FROM reservations r
+         JOIN users_entity t ON t.id = r.tenant_id
+ON CONFLICT (id) DO NOTHING;
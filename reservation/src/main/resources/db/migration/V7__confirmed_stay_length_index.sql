@@ -0,0 +1,5 @@
+-- Zapytania o nakładanie się dat pomijają partycje rezerwacji, które zaczęły się wcześniej niż najdłuższy
+-- potwierdzony pobyt przed szukanym terminem. Ten indeks pozwala odczytać tę długość bez skanu tabeli,
+-- więc pobyty przeniesione w V5 są brane pod uwagę niezależnie od długości.
+CREATE INDEX idx_reservation_confirmed_ranges_length
+    ON reservation_confirmed_ranges ((upper(during) - lower(during)));
@@ -0,0 +1,3 @@
+-- Zapytania o nakładanie się dat czytają przedziały z reservation_confirmed_ranges zamiast liczyć dolną granicę
+-- start_date z najdłuższego pobytu, więc indeks długości z V7 nie jest już używany.
+DROP INDEX IF EXISTS idx_reservation_confirmed_ranges_length;
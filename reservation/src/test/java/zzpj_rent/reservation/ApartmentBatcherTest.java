@@ -0,0 +1,210 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.ApartmentBatchProperties;
+import zzpj_rent.reservation.config.PropertyCacheProperties;
+import zzpj_rent.reservation.config.ResilienceProperties;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.exceptions.NoPropertyException;
+import zzpj_rent.reservation.services.ApartmentBatcher;
+import zzpj_rent.reservation.services.PropertyCache;
+import zzpj_rent.reservation.services.RemoteCalls;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApartmentBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private ApartmentBatcher apartmentBatcher;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        apartmentBatcher.shutdown();
+    }
+
+    @Test
+    void concurrentCallersForSameId_ShouldShareSingleRemoteCall() throws Exception {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), true);
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+
+        List<Future<ApartmentDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(callers.submit(() -> apartmentBatcher.get(1L)));
+        }
+        awaitCoalesced(19);
+        stub.release();
+
+        for (Future<ApartmentDTO> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        }
+        assertThat(stub.singleCalls()).isEqualTo(1);
+        assertThat(stub.batchCalls()).isEmpty();
+    }
+
+    @Test
+    void interruptedFirstCaller_ShouldNotFailCallersWaitingForSameId() throws Exception {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), true);
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+
+        Future<ApartmentDTO> first = callers.submit(() -> apartmentBatcher.get(1L));
+        awaitSingleCalls(stub, 1);
+        Future<ApartmentDTO> second = callers.submit(() -> apartmentBatcher.get(1L));
+        awaitCoalesced(1);
+        first.cancel(true);
+        stub.release();
+
+        assertThat(second.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(stub.singleCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void burstOfDistinctIds_ShouldGoAsOneBatchCall() throws Exception {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), false);
+        apartmentBatcher = batcher(stub, true, 50, Duration.ofMillis(200));
+
+        List<Future<ApartmentDTO>> results = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            long apartmentId = id;
+            results.add(callers.submit(() -> apartmentBatcher.get(apartmentId)));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).getId()).isEqualTo(i + 1L);
+        }
+        assertThat(stub.batchCalls()).hasSize(1);
+        assertThat(stub.batchCalls().getFirst()).containsExactlyInAnyOrderElementsOf(
+                LongStream.rangeClosed(1, 10).boxed().toList());
+        assertThat(stub.singleCalls()).isZero();
+    }
+
+    @Test
+    void getAll_ShouldSplitByMaxBatchSizeAndSkipMissingApartments() {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(3L), false);
+        apartmentBatcher = batcher(stub, true, 4, Duration.ofMillis(5));
+
+        Map<Long, ApartmentDTO> apartments = apartmentBatcher.getAll(LongStream.rangeClosed(1, 10).boxed().toList());
+
+        assertThat(apartments).hasSize(9).doesNotContainKey(3L);
+        assertThat(stub.batchCalls()).extracting(List::size).containsExactlyInAnyOrder(4, 4, 2);
+        assertThat(meterRegistry.summary(ApartmentBatcher.BATCH_SIZE).count()).isEqualTo(3);
+    }
+
+    @Test
+    void propertyCache_ShouldPrefetchInOneBatchAndReportMissingApartment() {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(3L), false);
+        apartmentBatcher = batcher(stub, true, 50, Duration.ofMillis(5));
+        PropertyCache propertyCache = new PropertyCache(apartmentBatcher,
+                new PropertyCacheProperties(100, Duration.ofMinutes(5), null, Duration.ofHours(24)), meterRegistry);
+
+        propertyCache.prefetch(List.of(1L, 2L, 3L));
+
+        assertThat(propertyCache.get(2L).getOwnerId()).isEqualTo(StubApartmentClient.OWNER_ID);
+        assertThat(stub.batchCalls()).hasSize(1);
+        assertThatThrownBy(() -> propertyCache.get(3L)).isInstanceOf(NoPropertyException.class);
+    }
+
+    @Test
+    void getAllWithoutBatching_ShouldStayWithinBulkheadAndKeepPartialResults() {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), false);
+        stub.delay(Duration.ofMillis(20));
+        stub.failOn(7L, new IllegalStateException("boom"));
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+
+        Map<Long, ApartmentDTO> apartments = apartmentBatcher.getAll(LongStream.rangeClosed(1, 120).boxed().toList());
+
+        // Bulkhead w testach mieści 50 wywołań i nie czeka na wolne miejsce
+        assertThat(apartments).hasSize(119).doesNotContainKey(7L);
+        assertThat(stub.singleCalls()).isEqualTo(120);
+        assertThat(stub.maxConcurrentSingleCalls()).isLessThanOrEqualTo(50);
+        assertThat(meterRegistry.find(RemoteCalls.REJECTED).counter()).isNull();
+    }
+
+    @Test
+    void propertyCache_ShouldCacheEveryPrefetchedApartmentWithoutBatching() {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), false);
+        stub.delay(Duration.ofMillis(10));
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+        PropertyCache propertyCache = new PropertyCache(apartmentBatcher,
+                new PropertyCacheProperties(100, Duration.ofMinutes(5), null, Duration.ofHours(24)), meterRegistry);
+
+        propertyCache.prefetch(LongStream.rangeClosed(1, 120).boxed().toList());
+
+        assertThat(propertyCache.get(120L).getOwnerId()).isEqualTo(StubApartmentClient.OWNER_ID);
+        assertThat(stub.singleCalls()).isEqualTo(120);
+    }
+
+    @Test
+    void errorThrownByCall_ShouldFailWaitersAndClearInFlightEntry() throws Exception {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), false);
+        stub.failOn(1L, new AssertionError("boom"));
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            Future<ApartmentDTO> result = callers.submit(() -> apartmentBatcher.get(1L));
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(AssertionError.class);
+            assertThat(stub.singleCalls()).isEqualTo(attempt);
+        }
+    }
+
+    @Test
+    void callersPinnedToEveryCarrier_ShouldStillGetTheirApartments() throws Exception {
+        StubApartmentClient stub = new StubApartmentClient(Set.of(), false);
+        stub.delay(Duration.ofMillis(20));
+        apartmentBatcher = batcher(stub, false, 50, Duration.ofMillis(5));
+
+        // Czekanie w bloku synchronized (jak w obliczeniu Caffeine) przypina wirtualny wątek do nośnika
+        int carriers = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        List<Future<ApartmentDTO>> results = new ArrayList<>();
+        for (long id = 1; id <= carriers; id++) {
+            long apartmentId = id;
+            Object monitor = new Object();
+            results.add(callers.submit(() -> {
+                synchronized (monitor) {
+                    return apartmentBatcher.get(apartmentId);
+                }
+            }));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).getId()).isEqualTo(i + 1L);
+        }
+    }
+
+    private ApartmentBatcher batcher(StubApartmentClient stub, boolean enabled, int maxBatchSize, Duration maxDelay) {
+        RemoteCalls remoteCalls = new RemoteCalls(new ResilienceProperties(50, 50, Duration.ofSeconds(1), 20, 10,
+                Duration.ofSeconds(30), 3, 50, Duration.ZERO), meterRegistry);
+        return new ApartmentBatcher(stub, remoteCalls, new ApartmentBatchProperties(enabled, maxBatchSize, maxDelay),
+                meterRegistry);
+    }
+
+    private static void awaitSingleCalls(StubApartmentClient stub, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stub.singleCalls() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCoalesced(int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter(ApartmentBatcher.COALESCED).count() < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package zzpj_rent.reservation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.model.Property;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.services.AvailabilityIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AvailabilityIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    // Potwierdzone rezerwacje w "bazie", wspólnej dla wszystkich indeksów w teście
+    private final List<Reservation> confirmed = new CopyOnWriteArrayList<>();
+    private ReservationRepository reservationRepository;
+    private AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository = mock(ReservationRepository.class);
+        when(reservationRepository.findAllConfirmedIntervals()).thenAnswer(_ -> confirmed.stream()
+                .map(r -> new ReservationInterval(r.getId(), r.getProperty().getId(), r.getStartDate(), r.getEndDate()))
+                .toList());
+        when(reservationRepository.findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any())).thenAnswer(call ->
+                confirmed.stream()
+                        .filter(r -> r.getProperty().getId().equals(call.getArgument(0)))
+                        .filter(r -> !r.getStartDate().isAfter(call.getArgument(2))
+                                && !r.getEndDate().isBefore(call.getArgument(1)))
+                        .toList());
+        availabilityIndex = new AvailabilityIndex(reservationRepository);
+    }
+
+    @Test
+    void shouldFallBackToRepositoryBeforeRebuild() {
+        confirmed.add(reservation(1L, 1L, DAY, DAY.plusDays(1)));
+
+        assertThat(availabilityIndex.isAvailable(1L, DAY, DAY.plusDays(2))).isFalse();
+        verify(reservationRepository).findByPropertyIdAndDateRangeOverlap(1L, DAY, DAY.plusDays(2));
+    }
+
+    @Test
+    void shouldDetectOverlapsLikeRepositoryQuery() {
+        confirmed.addAll(List.of(
+                reservation(1L, 1L, DAY.plusDays(10), DAY.plusDays(12)),
+                reservation(2L, 1L, DAY, DAY.plusDays(30)),
+                reservation(3L, 2L, DAY.plusDays(5), DAY.plusDays(6))));
+
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.isAvailable(1L, DAY.plusDays(31), DAY.plusDays(32))).isTrue();
+        assertThat(availabilityIndex.isAvailable(1L, DAY.minusDays(3), DAY.minusDays(1))).isTrue();
+        assertThat(availabilityIndex.isAvailable(2L, DAY.plusDays(7), DAY.plusDays(9))).isTrue();
+        assertThat(availabilityIndex.isAvailable(3L, DAY, DAY.plusDays(9))).isTrue();
+        verify(reservationRepository, never()).findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any());
+
+        assertThat(availabilityIndex.isAvailable(1L, DAY.plusDays(20), DAY.plusDays(22))).isFalse();
+        assertThat(availabilityIndex.isAvailable(1L, DAY.plusDays(30), DAY.plusDays(31))).isFalse();
+        assertThat(availabilityIndex.isAvailable(2L, DAY.plusDays(1), DAY.plusDays(5))).isFalse();
+    }
+
+    @Test
+    void shouldTrackAddedAndRemovedReservations() {
+        availabilityIndex.rebuild();
+
+        Reservation first = reservation(1L, 7L, DAY.plusDays(10), DAY.plusDays(15));
+        Reservation second = reservation(2L, 7L, DAY, DAY.plusDays(3));
+        confirmed.addAll(List.of(first, second));
+
+        availabilityIndex.add(first);
+        availabilityIndex.add(second);
+        availabilityIndex.add(second);
+
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(2), DAY.plusDays(4))).isFalse();
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(5), DAY.plusDays(8))).isTrue();
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(14), DAY.plusDays(20))).isFalse();
+
+        confirmed.remove(first);
+        availabilityIndex.remove(1L);
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(14), DAY.plusDays(20))).isTrue();
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(2), DAY.plusDays(4))).isFalse();
+
+        confirmed.remove(second);
+        availabilityIndex.remove(2L);
+        availabilityIndex.remove(99L);
+        assertThat(availabilityIndex.isAvailable(7L, DAY, DAY.plusDays(20))).isTrue();
+    }
+
+    @Test
+    void twoInstances_ShouldSeeEachOthersCancellationsAtOnceAndConfirmationsAfterRebuild() {
+        AvailabilityIndex other = new AvailabilityIndex(reservationRepository);
+        Reservation booked = reservation(1L, 7L, DAY, DAY.plusDays(5));
+        confirmed.add(booked);
+        availabilityIndex.rebuild();
+        other.rebuild();
+
+        // Druga instancja odwołuje rezerwację; ta nie odrzuca terminu na podstawie nieaktualnego indeksu
+        confirmed.remove(booked);
+        other.remove(booked.getId());
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(1), DAY.plusDays(2))).isTrue();
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(1), DAY.plusDays(2))).isTrue();
+        verify(reservationRepository, times(1)).findByPropertyIdAndDateRangeOverlap(7L, DAY.plusDays(1),
+                DAY.plusDays(2));
+
+        // Potwierdzenie na drugiej instancji ta widzi po przebudowie
+        Reservation confirmedElsewhere = reservation(2L, 7L, DAY.plusDays(10), DAY.plusDays(12));
+        confirmed.add(confirmedElsewhere);
+        other.add(confirmedElsewhere);
+        assertThat(other.isAvailable(7L, DAY.plusDays(11), DAY.plusDays(13))).isFalse();
+        availabilityIndex.rebuild();
+        assertThat(availabilityIndex.isAvailable(7L, DAY.plusDays(11), DAY.plusDays(13))).isFalse();
+    }
+
+    private static Reservation reservation(Long id, Long propertyId, LocalDate startDate, LocalDate endDate) {
+        return Reservation.builder().id(id).property(Property.builder().id(propertyId).build())
+                .status(Reservation.Status.CONFIRMED).startDate(startDate).endDate(endDate).build();
+    }
+}
@@ -0,0 +1,89 @@
+package zzpj_rent.reservation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Baza założona przez Hibernate z encji sprzed migracji, z danymi. Flyway oznacza ją wersją 1 bez uruchamiania V1
+ * (spring.flyway.baseline-on-migrate) i stosuje pozostałe migracje; kontekst startuje tylko wtedy,
+ * gdy Hibernate zwaliduje wynikowy schemat.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class BaselineMigrationTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Kontekst Springa, a z nim Flyway, powstaje dopiero po @BeforeAll
+    @BeforeAll
+    static void createBaselineDatabase() throws Exception {
+        try (InputStream ddl = BaselineMigrationTest.class.getResourceAsStream("/db/baseline/hibernate-baseline.sql");
+             Connection connection = POSTGRES.createConnection("");
+             Statement statement = connection.createStatement()) {
+            statement.execute(new String(ddl.readAllBytes(), StandardCharsets.UTF_8));
+            statement.execute("INSERT INTO apartment (id, price, rental_type, owner_id) VALUES (1, 1000, 'DAILY', 99)");
+            statement.execute("INSERT INTO users_entity (id, username, email, first_name, last_name) VALUES " +
+                    "(1, 'jan', 'jan@example.com', 'Jan', 'Kowalski'), (2, 'anna', 'anna@example.com', 'Anna', 'Nowak')");
+            statement.execute("INSERT INTO reservations " +
+                    "(id, property_id, tenant_id, start_date, end_date, status, created_at, payment, price) VALUES " +
+                    "(1, 1, 1, DATE '2024-03-01', DATE '2024-03-05', 'CONFIRMED', TIMESTAMP '2024-02-01', 'ONE_TIME', 500), " +
+                    "(2, 1, 2, DATE '2024-03-03', DATE '2024-03-08', 'PENDING', TIMESTAMP '2024-02-02', 'ONE_TIME', 600)");
+            statement.execute("INSERT INTO opinions (id, content, rating, creator_id, user_id, created_at) VALUES " +
+                    "(1, 'ok', 4, 2, 1, TIMESTAMP '2024-03-10'), (2, 'super', 5, 2, 1, TIMESTAMP '2024-03-11')");
+        }
+    }
+
+    @Test
+    void migrate_ShouldBaselineAtV1AndApplyEveryLaterMigration() {
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+                "SELECT version, type, success FROM flyway_schema_history WHERE version IS NOT NULL " +
+                "ORDER BY installed_rank");
+
+        assertThat(history.getFirst()).containsEntry("version", "1").containsEntry("type", "BASELINE");
+        assertThat(history.subList(1, history.size())).isNotEmpty()
+                .allSatisfy(row -> assertThat(row).containsEntry("type", "SQL").containsEntry("success", true));
+        assertThat(history).extracting(row -> row.get("version")).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void migrate_ShouldCarryExistingRowsIntoNewColumnsTablesAndIndexes() {
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM reservations ORDER BY id", Long.class))
+                .containsExactly(0L, 0L);
+        assertThat(jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'reservations'",
+                String.class)).isEqualTo("p");
+        assertThat(jdbcTemplate.queryForList("SELECT reservation_id FROM reservation_confirmed_ranges", Long.class))
+                .containsExactly(1L);
+        assertThat(jdbcTemplate.queryForList("SELECT tenant_surname FROM reservation_view ORDER BY id", String.class))
+                .containsExactly("Kowalski", "Nowak");
+        assertThat(jdbcTemplate.queryForMap("SELECT rating_sum, rating_count, rating_5 FROM user_rating_summary " +
+                "WHERE user_id = 1")).containsEntry("rating_sum", 9L).containsEntry("rating_count", 2L)
+                .containsEntry("rating_5", 1L);
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes", String.class)).contains(
+                "idx_reservations_property_status_dates", "idx_reservations_tenant_status_created",
+                "idx_opinions_user_created", "idx_reservation_view_tenant_status_created",
+                "idx_reservations_confirmed_end", "idx_reservations_pending_created");
+    }
+}
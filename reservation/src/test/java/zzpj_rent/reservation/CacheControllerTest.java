@@ -0,0 +1,70 @@
+package zzpj_rent.reservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import zzpj_rent.reservation.controllers.CacheController;
+import zzpj_rent.reservation.services.CalendarCache;
+import zzpj_rent.reservation.services.PropertyCache;
+import zzpj_rent.reservation.services.UserCache;
+
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(CacheController.class)
+class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PropertyCache propertyCache;
+
+    @MockitoBean
+    private UserCache userCache;
+
+    @MockitoBean
+    private CalendarCache calendarCache;
+
+    @Test
+    void evictProperty_ShouldInvalidateSingleEntry() throws Exception {
+        mockMvc.perform(delete("/api/rent/cache/properties/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Property 5 evicted from cache"));
+
+        verify(propertyCache).invalidate(5L);
+    }
+
+    @Test
+    void evictAllProperties_ShouldClearCache() throws Exception {
+        mockMvc.perform(delete("/api/rent/cache/properties"))
+                .andExpect(status().isOk());
+
+        verify(propertyCache).invalidateAll();
+    }
+
+    @Test
+    void evictUser_ShouldInvalidateSingleEntry() throws Exception {
+        mockMvc.perform(delete("/api/rent/cache/users/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("User 3 evicted from cache"));
+
+        verify(userCache).invalidate(3L);
+    }
+
+    @Test
+    void evictAllCalendars_ShouldClearCache() throws Exception {
+        mockMvc.perform(delete("/api/rent/cache/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Calendar cache cleared"));
+
+        verify(calendarCache).invalidateAll();
+    }
+}
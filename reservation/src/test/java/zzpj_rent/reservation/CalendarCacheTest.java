@@ -0,0 +1,69 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.services.CalendarCache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CalendarCacheTest {
+
+    private ReservationRepository reservationRepository;
+    private CalendarCache calendarCache;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository = mock(ReservationRepository.class);
+        calendarCache = new CalendarCache(reservationRepository,
+                new CalendarCacheProperties(100, Duration.ofMinutes(10)), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldLoadMissingMonthsWithSingleQuery() {
+        when(reservationRepository.findConfirmedIntervals(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 3, 31)))
+                .thenReturn(List.of(
+                        new ReservationInterval(1L, 1L, LocalDate.of(2029, 12, 30), LocalDate.of(2030, 1, 2)),
+                        new ReservationInterval(2L, 1L, LocalDate.of(2030, 2, 27), LocalDate.of(2030, 3, 1))));
+
+        BitSet booked = calendarCache.bookedDays(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 3, 31));
+
+        assertThat(booked.stream().boxed().toList()).containsExactly(0, 1, 57, 58, 59);
+        verify(reservationRepository, times(1)).findConfirmedIntervals(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldServeRepeatedWindowsFromCache() {
+        when(reservationRepository.findConfirmedIntervals(eq(1L), any(), any())).thenReturn(List.of());
+
+        calendarCache.bookedDays(1L, LocalDate.of(2030, 1, 10), LocalDate.of(2030, 2, 10));
+        calendarCache.bookedDays(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31));
+        calendarCache.bookedDays(1L, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 3, 15));
+
+        // drugie wywołanie trafia w cache, trzecie dociąga tylko marzec
+        verify(reservationRepository).findConfirmedIntervals(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 2, 28));
+        verify(reservationRepository).findConfirmedIntervals(1L, LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31));
+        verifyNoMoreInteractions(reservationRepository);
+    }
+
+    @Test
+    void shouldReloadOnlyInvalidatedMonths() {
+        when(reservationRepository.findConfirmedIntervals(eq(1L), any(), any())).thenReturn(List.of());
+        calendarCache.bookedDays(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 3, 31));
+
+        calendarCache.invalidate(1L, LocalDate.of(2030, 2, 20), LocalDate.of(2030, 2, 25));
+        calendarCache.bookedDays(1L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 3, 31));
+
+        verify(reservationRepository).findConfirmedIntervals(1L, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 28));
+    }
+}
@@ -0,0 +1,211 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import zzpj_rent.reservation.config.BatchProperties;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.config.LookupProperties;
+import zzpj_rent.reservation.exceptions.InvalidDateRangeException;
+import zzpj_rent.reservation.model.Property;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.model.User;
+import zzpj_rent.reservation.repository.OpinionRepository;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.repository.UserRatingSummaryRepository;
+import zzpj_rent.reservation.services.AvailabilityIndex;
+import zzpj_rent.reservation.services.CalendarCache;
+import zzpj_rent.reservation.services.ParallelLookups;
+import zzpj_rent.reservation.services.PropertyCache;
+import zzpj_rent.reservation.services.PropertyLocks;
+import zzpj_rent.reservation.services.ReservationOutbox;
+import zzpj_rent.reservation.services.ReservationService;
+import zzpj_rent.reservation.services.UserCache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dwie instancje serwisu na jednej bazie, każda z własnymi blokadami mieszkań i indeksem dostępności.
+ * Blokady nie obejmują drugiej instancji, więc przed podwójnym potwierdzeniem chroni tylko baza.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservationBatchRepository.class, PropertyAvailabilityRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ConcurrentConfirmationTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    private static final int GROUPS = 20;
+    private static final int PER_GROUP = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OpinionRepository opinionRepository;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private PropertyAvailabilityRepository propertyAvailabilityRepository;
+
+    @Autowired
+    private UserRatingSummaryRepository userRatingSummaryRepository;
+
+    @Autowired
+    private ReservationViewRepository reservationViewRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<List<Long>> groups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Grupy co 10 dni; w każdej PER_GROUP rezerwacji nachodzi na siebie nawzajem
+        transactionTemplate.executeWithoutResult(_ -> {
+            Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+            User tenant = entityManager.persist(User.builder().username("tenant").email("tenant@example.com")
+                    .firstName("Jan").lastName("Kowalski").build());
+            LocalDate first = LocalDate.now().plusDays(30);
+            for (int group = 0; group < GROUPS; group++) {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < PER_GROUP; i++) {
+                    LocalDate start = first.plusDays(10L * group + i);
+                    ids.add(entityManager.persist(Reservation.builder()
+                            .property(property)
+                            .tenant(tenant)
+                            .status(Reservation.Status.PENDING)
+                            .startDate(start)
+                            .endDate(start.plusDays(PER_GROUP))
+                            .payment(Reservation.Payment.ONE_TIME)
+                            .price(BigDecimal.valueOf(1000))
+                            .createdAt(LocalDateTime.of(2030, 1, 1, 12, 0))
+                            .build()).getId());
+                }
+                groups.add(ids);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM reservation_outbox");
+        jdbcTemplate.update("DELETE FROM reservation_view");
+        jdbcTemplate.update("DELETE FROM reservations");
+        jdbcTemplate.update("DELETE FROM users_entity");
+        jdbcTemplate.update("DELETE FROM apartment");
+    }
+
+    @Test
+    void overlappingConfirmationsOnTwoInstances_ShouldConfirmExactlyOnePerOverlap() throws Exception {
+        List<ReservationService> instances = List.of(service(), service());
+
+        Queue<Long> confirmed = new ConcurrentLinkedQueue<>();
+        Queue<Long> rejected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (List<Long> group : groups) {
+                for (int i = 0; i < group.size(); i++) {
+                    ReservationService instance = instances.get(i % instances.size());
+                    Long id = group.get(i);
+                    calls.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            instance.updateReservationStatus(id, Reservation.Status.CONFIRMED);
+                            confirmed.add(id);
+                        } catch (InvalidDateRangeException _) {
+                            rejected.add(id);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            // Każdy inny wyjątek niż InvalidDateRangeException wychodzi tutaj
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(confirmed).hasSize(GROUPS);
+        assertThat(rejected).hasSize(GROUPS * (PER_GROUP - 1));
+        Map<Long, String> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, status FROM reservations",
+                row -> { statuses.put(row.getLong("id"), row.getString("status")); });
+        for (List<Long> group : groups) {
+            assertThat(group).filteredOn(id -> statuses.get(id).equals("CONFIRMED")).hasSize(1)
+                    .containsAnyElementsOf(confirmed);
+        }
+    }
+
+    // Osobne blokady i indeks; wspólne są tylko baza i repozytoria
+    private ReservationService service() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex(reservationRepository);
+        availabilityIndex.rebuild();
+        return new ReservationService(reservationRepository, opinionRepository, availabilityIndex,
+                mock(PropertyCache.class), mock(UserCache.class),
+                new ParallelLookups(new LookupProperties(Duration.ofSeconds(5))), reservationBatchRepository,
+                new PropertyLocks(),
+                new CalendarCache(reservationRepository, new CalendarCacheProperties(100, Duration.ofMinutes(10)),
+                        meterRegistry),
+                propertyAvailabilityRepository, userRatingSummaryRepository, meterRegistry,
+                new ReservationOutbox(outboxEventRepository, Jackson2ObjectMapperBuilder.json().build()),
+                transactionTemplate, reservationViewRepository, new BatchProperties(10));
+    }
+}
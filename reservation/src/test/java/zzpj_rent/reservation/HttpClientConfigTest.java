@@ -0,0 +1,95 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.Configurable;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import zzpj_rent.reservation.config.HttpClientConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientConfigTest {
+
+    @Test
+    void keepAliveStrategy_ShouldUseShorterOfServerHintAndLimit() {
+        ConnectionKeepAliveStrategy strategy = HttpClientConfig.keepAliveStrategy(TimeValue.ofSeconds(30));
+
+        assertThat(strategy.getKeepAliveDuration(keepAlive("timeout=5"), HttpClientContext.create()))
+                .isEqualTo(TimeValue.ofSeconds(5));
+        assertThat(strategy.getKeepAliveDuration(keepAlive("timeout=120"), HttpClientContext.create()))
+                .isEqualTo(TimeValue.ofSeconds(30));
+        assertThat(strategy.getKeepAliveDuration(new BasicClassicHttpResponse(200), HttpClientContext.create())
+                .toMilliseconds()).isEqualTo(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Test
+    void poolMetrics_ShouldBeTaggedWithPoolName() {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(200)
+                .setMaxConnPerRoute(50)
+                .build();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new HttpClientConfig().feignConnectionPoolMetrics(
+                new StaticListableBeanFactory(Map.of("hc5ConnectionManager", pool))
+                        .getBeanProvider(HttpClientConnectionManager.class))
+                .bindTo(registry);
+
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", HttpClientConfig.POOL_NAME).gauge().value()).isEqualTo(200);
+        assertThat(registry.get("httpcomponents.httpclient.pool.route.max.default")
+                .tag("httpclient", HttpClientConfig.POOL_NAME).gauge().value()).isEqualTo(50);
+        pool.close();
+    }
+
+    @Test
+    void feignClient_ShouldWaitForPooledConnectionForOneSecond() {
+        new ApplicationContextRunner()
+                .withInitializer(context -> context.getEnvironment().getPropertySources().addFirst(applicationYaml()))
+                .withUserConfiguration(FeignHttpClientPropertiesConfiguration.class, HttpClient5FeignConfiguration.class)
+                .run(context -> {
+                    RequestConfig config = ((Configurable) context.getBean(CloseableHttpClient.class)).getConfig();
+                    assertThat(config.getConnectionRequestTimeout()).isEqualTo(Timeout.ofSeconds(1));
+                });
+    }
+
+    private static PropertySource<?> applicationYaml() {
+        try {
+            return new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yaml")).getFirst();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @EnableConfigurationProperties(FeignHttpClientProperties.class)
+    static class FeignHttpClientPropertiesConfiguration {
+    }
+
+    private static BasicClassicHttpResponse keepAlive(String value) {
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+        response.addHeader("Keep-Alive", value);
+        return response;
+    }
+}
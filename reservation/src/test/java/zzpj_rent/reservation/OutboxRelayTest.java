@@ -0,0 +1,90 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import zzpj_rent.reservation.config.OutboxProperties;
+import zzpj_rent.reservation.model.OutboxEvent;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+import zzpj_rent.reservation.services.OutboxPublisher;
+import zzpj_rent.reservation.services.OutboxRelay;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private OutboxPublisher outboxPublisher;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setup() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        outboxPublisher = mock(OutboxPublisher.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxEventRepository, outboxPublisher, new TransactionTemplate(transactionManager),
+                new OutboxProperties(true, Duration.ofSeconds(1), 2, 3, "log"), meterRegistry);
+        when(outboxEventRepository.tryLock(OutboxRelay.LOCK_KEY)).thenReturn(true);
+    }
+
+    @Test
+    void shouldPublishInOrderAndDeleteUntilBatchIsNotFull() {
+        when(outboxEventRepository.findByOrderByIdAsc(Limit.of(2)))
+                .thenReturn(events(1, 2), events(3));
+
+        int published = relay.relay();
+
+        assertThat(published).isEqualTo(3);
+        var inOrder = inOrder(outboxPublisher, outboxEventRepository);
+        inOrder.verify(outboxPublisher).publish(events(1, 2));
+        inOrder.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(outboxPublisher).publish(events(3));
+        inOrder.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(meterRegistry.counter(OutboxRelay.PUBLISHED).count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeepEventsWhenPublisherFails() {
+        when(outboxEventRepository.findByOrderByIdAsc(any())).thenReturn(events(1, 2));
+        doThrow(new IllegalStateException("broker down")).when(outboxPublisher).publish(any());
+
+        int published = relay.relay();
+
+        assertThat(published).isZero();
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        assertThat(meterRegistry.counter(OutboxRelay.FAILURES).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipRunWhenAnotherInstanceHoldsTheLock() {
+        when(outboxEventRepository.tryLock(OutboxRelay.LOCK_KEY)).thenReturn(false);
+
+        int published = relay.relay();
+
+        assertThat(published).isZero();
+        verify(outboxEventRepository, never()).findByOrderByIdAsc(any());
+        verifyNoInteractions(outboxPublisher);
+    }
+
+    private static List<OutboxEvent> events(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new OutboxEvent(id, 100 + id, OutboxEvent.Type.CREATED, "{}",
+                        LocalDateTime.of(2030, 1, 1, 12, 0)))
+                .toList();
+    }
+}
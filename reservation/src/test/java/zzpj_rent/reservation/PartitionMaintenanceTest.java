@@ -0,0 +1,62 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import zzpj_rent.reservation.config.PartitionProperties;
+import zzpj_rent.reservation.repository.ReservationPartitionRepository;
+import zzpj_rent.reservation.services.PartitionMaintenance;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PartitionMaintenanceTest {
+
+    private ReservationPartitionRepository reservationPartitionRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setup() {
+        reservationPartitionRepository = mock(ReservationPartitionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        maintenance = new PartitionMaintenance(reservationPartitionRepository,
+                new PartitionProperties(true, Duration.ofHours(12), 3), meterRegistry);
+    }
+
+    @Test
+    void shouldCreateOnlyMissingMonths() {
+        YearMonth current = YearMonth.now();
+        when(reservationPartitionRepository.findMonths()).thenReturn(Set.of(current, current.plusMonths(1)));
+        when(reservationPartitionRepository.createMonth(any())).thenReturn(true);
+
+        int created = maintenance.createAhead();
+
+        assertThat(created).isEqualTo(2);
+        verify(reservationPartitionRepository).createMonth(current.plusMonths(2));
+        verify(reservationPartitionRepository).createMonth(current.plusMonths(3));
+        verify(reservationPartitionRepository, times(2)).createMonth(any());
+        assertThat(meterRegistry.counter(PartitionMaintenance.CREATED).count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldContinueAfterFailedMonth() {
+        YearMonth current = YearMonth.now();
+        when(reservationPartitionRepository.findMonths()).thenReturn(Set.of());
+        when(reservationPartitionRepository.createMonth(any())).thenReturn(true);
+        when(reservationPartitionRepository.createMonth(eq(current.plusMonths(1))))
+                .thenThrow(new DataAccessResourceFailureException("lock timeout"));
+
+        int created = maintenance.createAhead();
+
+        assertThat(created).isEqualTo(3);
+        verify(reservationPartitionRepository, times(4)).createMonth(any());
+        assertThat(meterRegistry.counter(PartitionMaintenance.FAILURES).count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,56 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.ExpiryProperties;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.services.PendingExpiry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PendingExpiryTest {
+
+    private ReservationBatchRepository reservationBatchRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PendingExpiry expiry;
+
+    @BeforeEach
+    void setup() {
+        reservationBatchRepository = mock(ReservationBatchRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        expiry = new PendingExpiry(reservationBatchRepository, new ExpiryProperties(true, Duration.ofHours(48),
+                Duration.ofMinutes(15), 100, 3, Duration.ZERO), meterRegistry);
+    }
+
+    @Test
+    void shouldRejectReservationsOlderThanTimeToLive() {
+        when(reservationBatchRepository.expirePending(any(), eq(100))).thenReturn(100, 40);
+        LocalDateTime before = LocalDateTime.now().minusHours(48);
+
+        int expired = expiry.expirePending();
+
+        assertThat(expired).isEqualTo(140);
+        verify(reservationBatchRepository, times(2)).expirePending(
+                argThat(createdBefore -> !createdBefore.isBefore(before)
+                        && createdBefore.isBefore(LocalDateTime.now().minusHours(47))), eq(100));
+        assertThat(meterRegistry.counter(PendingExpiry.EXPIRED).count()).isEqualTo(140);
+        assertThat(meterRegistry.get(PendingExpiry.LAST_RUN).gauge().value()).isEqualTo(140);
+    }
+
+    @Test
+    void shouldStopAtPerRunCap() {
+        when(reservationBatchRepository.expirePending(any(), anyInt())).thenReturn(100);
+
+        int expired = expiry.expirePending();
+
+        assertThat(expired).isEqualTo(300);
+        verify(reservationBatchRepository, times(3)).expirePending(any(), anyInt());
+        assertThat(meterRegistry.timer(PendingExpiry.CHUNKS).count()).isEqualTo(3);
+    }
+}
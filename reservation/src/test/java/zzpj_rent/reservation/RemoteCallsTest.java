@@ -0,0 +1,127 @@
+package zzpj_rent.reservation;
+
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.ResilienceProperties;
+import zzpj_rent.reservation.exceptions.ServiceUnavailableException;
+import zzpj_rent.reservation.services.RemoteCalls;
+
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RemoteCallsTest {
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "/api/apartments/1", Map.of(),
+            null, StandardCharsets.UTF_8, null);
+
+    private SimpleMeterRegistry meterRegistry;
+    private RemoteCalls remoteCalls;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        remoteCalls = new RemoteCalls(new ResilienceProperties(50, 100, Duration.ofSeconds(1), 4, 4,
+                Duration.ofMinutes(1), 1, 1, Duration.ZERO), meterRegistry);
+    }
+
+    @Test
+    void shouldOpenAfterServerErrorsAndRejectWithoutCallingClient() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.APARTMENTS, () -> {
+                calls.incrementAndGet();
+                throw new FeignException.ServiceUnavailable("down", REQUEST, null, null);
+            })).isInstanceOf(ServiceUnavailableException.class);
+        }
+
+        assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.APARTMENTS, calls::incrementAndGet))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        assertThat(calls).hasValue(4);
+        assertThat(remoteCalls.state(RemoteCalls.APARTMENTS)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(remoteCalls.state(RemoteCalls.USERS)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.counter(RemoteCalls.REJECTED, "client", RemoteCalls.APARTMENTS,
+                "reason", "circuit_open").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(RemoteCalls.TRANSITIONS, "client", RemoteCalls.APARTMENTS,
+                "from", "CLOSED", "to", "OPEN").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPassNotFoundThroughWithoutCountingItAsFailure() {
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.USERS, () -> {
+                throw new FeignException.NotFound("missing", REQUEST, null, null);
+            })).isInstanceOf(FeignException.NotFound.class);
+        }
+
+        assertThat(remoteCalls.state(RemoteCalls.USERS)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldNotCountInterruptedCallsAsOutage() {
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.APARTMENTS, () -> {
+                throw new RetryableException(-1, "Read interrupted", Request.HttpMethod.GET,
+                        new InterruptedIOException(), (Long) null, REQUEST);
+            })).isInstanceOf(RetryableException.class);
+        }
+
+        assertThat(remoteCalls.state(RemoteCalls.APARTMENTS)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldNotCountFailuresOnInterruptedThreadAsOutage() {
+        for (int i = 0; i < 8; i++) {
+            try {
+                assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.APARTMENTS, () -> {
+                    Thread.currentThread().interrupt();
+                    throw new RetryableException(-1, "Closed by interrupt", Request.HttpMethod.GET,
+                            new SocketException("Closed by interrupt"), (Long) null, REQUEST);
+                })).isInstanceOf(RetryableException.class);
+            } finally {
+                Thread.interrupted();
+            }
+        }
+
+        assertThat(remoteCalls.state(RemoteCalls.APARTMENTS)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldRejectCallsAboveBulkheadLimitImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> remoteCalls.call(RemoteCalls.USERS, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> remoteCalls.call(RemoteCalls.USERS, () -> "fast"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        release.countDown();
+
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(meterRegistry.counter(RemoteCalls.REJECTED, "client", RemoteCalls.USERS,
+                "reason", "bulkhead_full").count()).isEqualTo(1);
+        assertThat(remoteCalls.state(RemoteCalls.USERS)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}
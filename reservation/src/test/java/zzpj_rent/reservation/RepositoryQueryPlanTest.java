@@ -0,0 +1,355 @@
+package zzpj_rent.reservation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.repository.OpinionRepository;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationPartitionRepository;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.repository.UserRatingSummaryRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plany zapytań repozytoriów na Postgresie ze schematem z migracji. Każde zapytanie wysłane przez repozytorium
+ * jest przechwytywane razem z parametrami i puszczane ponownie przez EXPLAIN. Indeksy partycji są porównywane
+ * przez indeks tabeli reservations, z którego powstały; skan sekwencyjny wolno zrobić tylko na pustej partycji.
+ * Celowo pełne skany: przedziały potwierdzonych rezerwacji przy starcie indeksu dostępności
+ * (sprawdzamy tylko, że nie czytamy partycji rezerwacji), insertAllRows i insertFromOpinions przy przebudowie
+ * widoku i podsumowań ocen (bez testów).
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PropertyAvailabilityRepository.class, ReservationBatchRepository.class,
+        ReservationPartitionRepository.class, RepositoryQueryPlanTest.StatementCapture.class})
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryQueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementCapture capture;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationViewRepository reservationViewRepository;
+
+    @Autowired
+    private OpinionRepository opinionRepository;
+
+    @Autowired
+    private UserRatingSummaryRepository userRatingSummaryRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private PropertyAvailabilityRepository propertyAvailabilityRepository;
+
+    @Autowired
+    private ReservationPartitionRepository reservationPartitionRepository;
+
+    // Tyle wierszy, żeby planista wybierał indeksy tak jak na produkcji, a nie skan małej tabeli;
+    // najemca i oceniany użytkownik mają po ~100 wierszy, więc strona jest krótsza niż ich historia
+    @BeforeEach
+    void seed() {
+        for (YearMonth month = YearMonth.of(2022, 1); month.getYear() < 2025; month = month.plusMonths(1)) {
+            reservationPartitionRepository.createMonth(month);
+        }
+        jdbcTemplate.update("INSERT INTO apartment (id, price, rental_type, owner_id) " +
+                "SELECT g, 1000, 'MONTHLY', 1 + g % 50 FROM generate_series(1, 2500) g");
+        jdbcTemplate.update("INSERT INTO users_entity (id, username, email, first_name, last_name) " +
+                "SELECT g, 'user' || g, 'user' || g || '@mail.com', 'Jan', 'Kowalski' FROM generate_series(1, 2000) g");
+        // Trzy lata rezerwacji, ~2500 na miesiąc; rezerwacje jednego mieszkania są co 4 tygodnie, więc się nie nakładają
+        jdbcTemplate.update("INSERT INTO reservations " +
+                "(id, property_id, tenant_id, start_date, end_date, status, created_at, payment, price, version) " +
+                "SELECT g, 1 + g % 2500, 1 + g % 199, DATE '2022-01-01' + ((g - 1) / 2500) * 28, " +
+                "DATE '2022-01-01' + ((g - 1) / 2500) * 28 + 5, " +
+                "(ARRAY['PENDING', 'CONFIRMED', 'CANCELLED', 'REJECTED', 'FINISHED'])[1 + g % 5], " +
+                "TIMESTAMP '2024-01-01' + g * INTERVAL '1 minute', 'ONE_TIME', 1000, 0 " +
+                "FROM generate_series(1, 100000) g");
+        jdbcTemplate.update(ReservationViewRepository.INSERT_FROM_RESERVATIONS);
+        jdbcTemplate.update("INSERT INTO opinions (id, content, rating, creator_id, user_id, created_at) " +
+                "SELECT g, 'ok', g % 6, 1 + (g * 7) % 2000, 1 + g % 199, TIMESTAMP '2024-01-01' + g * INTERVAL '1 minute' " +
+                "FROM generate_series(1, 20000) g");
+        jdbcTemplate.update("INSERT INTO reservation_outbox (aggregate_id, type, payload, created_at) " +
+                "SELECT g, 'CREATED', '{}', TIMESTAMP '2024-01-01' FROM generate_series(1, 5000) g");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void overlapQueries_ShouldUseConfirmedRangesWhateverTheLongestStay() {
+        // Ponad roczny potwierdzony pobyt innego mieszkania (8 ma w seedzie tylko anulowane rezerwacje)
+        jdbcTemplate.update("INSERT INTO reservations " +
+                "(id, property_id, tenant_id, start_date, end_date, status, created_at, version) " +
+                "VALUES (1000000, 8, 1, DATE '2022-01-15', DATE '2024-03-20', 'CONFIRMED', TIMESTAMP '2022-01-01', 0)");
+        jdbcTemplate.execute("ANALYZE reservation_confirmed_ranges");
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        LocalDate end = LocalDate.of(2024, 3, 10);
+
+        // Wiersze rezerwacji doczytujemy po kluczu głównym, a partycje bez pasujących przedziałów
+        // pomija wykonanie złączenia
+        assertIndexScans(() -> reservationRepository.findByPropertyIdAndDateRangeOverlap(7L, start, end),
+                "reservations_confirmed_no_overlap", "reservations_pkey");
+        List<QueryPlan> plans = List.of(
+                assertIndexScans(() -> reservationRepository.findConfirmedIntervals(7L, start, end),
+                        "reservations_confirmed_no_overlap"),
+                assertIndexScans(() -> propertyAvailabilityRepository.findFreePropertyIds(List.of(3L, 7L, 11L),
+                        start, end), "reservations_confirmed_no_overlap"));
+
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.relations())
+                .containsExactly("reservation_confirmed_ranges"));
+    }
+
+    @Test
+    void confirmedIntervalsOnStartup_ShouldNotReadReservationPartitions() {
+        QueryPlan plan = explain(() -> reservationRepository.findAllConfirmedIntervals());
+
+        assertThat(plan.relations()).containsExactly("reservation_confirmed_ranges");
+    }
+
+    @Test
+    void reservationLookups_ShouldUsePrimaryKeys() {
+        assertIndexScans(() -> reservationRepository.findByIdAndTenantId(42L, 43L), "reservations_pkey");
+        assertIndexScans(() -> reservationViewRepository.findRowById(42L), "reservation_view_pkey");
+        assertIndexScans(() -> reservationViewRepository.findRowByIdAndTenantId(42L, 43L), "reservation_view_pkey");
+        assertIndexScans(() -> reservationViewRepository.refresh(List.of(42L, 43L)),
+                "reservation_view_pkey", "reservations_pkey", "users_entity_pkey");
+        assertIndexScans(() -> reservationViewRepository.refreshTenantNames(10_000, 10_500),
+                "reservation_view_pkey", "users_entity_pkey");
+    }
+
+    @Test
+    void tenantPages_ShouldUseTenantIndexes() {
+        assertIndexScans(() -> reservationViewRepository.findRowsByTenantId(7L, Limit.of(20)),
+                "idx_reservation_view_tenant_created");
+        assertIndexScans(() -> reservationViewRepository.findRowsByTenantIdAfter(7L, CREATED.plusDays(7), 10_000L,
+                Limit.of(20)), "idx_reservation_view_tenant_created");
+        assertIndexScans(() -> reservationViewRepository.findRowsByTenantIdAndStatus(7L, Reservation.Status.PENDING,
+                Limit.of(20)), "idx_reservation_view_tenant_status_created");
+        assertIndexScans(() -> reservationViewRepository.findRowsByTenantIdAndStatusAfter(7L,
+                Reservation.Status.PENDING, CREATED.plusDays(7), 10_000L, Limit.of(20)),
+                "idx_reservation_view_tenant_status_created");
+    }
+
+    @Test
+    void propertyPages_ShouldUsePropertyIndex() {
+        assertIndexScans(() -> reservationViewRepository.findRowsByPropertyId(7L, Limit.of(20)),
+                "idx_reservation_view_property_created");
+        assertIndexScans(() -> reservationViewRepository.findRowsByPropertyIdAfter(7L, CREATED.plusDays(7), 10_000L,
+                Limit.of(20)), "idx_reservation_view_property_created");
+    }
+
+    @Test
+    void opinionPages_ShouldUseUserCreatedIndex() {
+        assertIndexScans(() -> opinionRepository.findRowsByUserId(7L, Limit.of(20)),
+                "idx_opinions_user_created", "users_entity_pkey");
+        assertIndexScans(() -> opinionRepository.findRowsByUserIdAfter(7L, CREATED.plusDays(7), 10_000L,
+                Limit.of(20)), "idx_opinions_user_created", "users_entity_pkey");
+        assertIndexScans(() -> userRatingSummaryRepository.addRating(7L, 4, 1), "user_rating_summary_pkey");
+    }
+
+    @Test
+    void batchWrites_ShouldUseClaimIndexesAndPrimaryKeys() {
+        // Porcja ma się do tabeli tak jak domyślne 500 do dużej bazy; przy 500 z 20 tys. wygrywa złączenie haszujące
+        assertIndexScans(() -> reservationBatchRepository.finishEnded(LocalDate.of(2024, 2, 1), 50),
+                "idx_reservations_confirmed_end", "reservations_pkey", "reservation_view_pkey");
+        assertIndexScans(() -> reservationBatchRepository.expirePending(CREATED.plusDays(2), 50),
+                "idx_reservations_pending_created", "reservations_pkey", "reservation_view_pkey");
+        List<Reservation> pending = reservationRepository.findAllById(List.of(40L, 5040L));
+        QueryPlan update = assertIndexScans(() -> reservationBatchRepository.updateStatuses(pending,
+                Reservation.Status.PENDING, Reservation.Status.CANCELLED), "reservations_pkey");
+        assertThat(update.relations()).containsOnly("reservations", "reservations_p2022_01", "reservations_p2022_02");
+    }
+
+    @Test
+    void outboxRelay_ShouldUsePrimaryKey() {
+        assertIndexScans(() -> outboxEventRepository.findByOrderByIdAsc(Limit.of(100)), "reservation_outbox_pkey");
+        assertIndexScans(() -> outboxEventRepository.deleteAllByIdInBatch(List.of(1L, 2L, 3L)),
+                "reservation_outbox_pkey");
+    }
+
+    private QueryPlan assertIndexScans(Runnable query, String... indexes) {
+        QueryPlan plan = explain(query);
+        assertThat(plan.seqScans())
+                .allSatisfy(relation -> assertThat(rows(relation)).as("sequential scan of %s", relation)
+                        .isLessThanOrEqualTo(0));
+        assertThat(plan.indexes().stream().map(this::rootIndex).toList()).contains(indexes);
+        return plan;
+    }
+
+    private QueryPlan explain(Runnable query) {
+        List<CapturedStatement> statements = capture.record(query);
+        assertThat(statements).isNotEmpty();
+
+        QueryPlan plan = new QueryPlan(new TreeSet<>(), new TreeSet<>(), new TreeSet<>());
+        for (CapturedStatement statement : statements) {
+            String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + statement.sql(), String.class,
+                    statement.parameters().toArray());
+            collect(readTree(json).get(0).get("Plan"), plan);
+        }
+        return plan;
+    }
+
+    private void collect(JsonNode node, QueryPlan plan) {
+        if (node.has("Relation Name")) {
+            plan.relations().add(node.get("Relation Name").asText());
+            if (node.get("Node Type").asText().equals("Seq Scan")) {
+                plan.seqScans().add(node.get("Relation Name").asText());
+            }
+        }
+        if (node.has("Index Name")) {
+            plan.indexes().add(node.get("Index Name").asText());
+        }
+        node.path("Conflict Arbiter Indexes").forEach(index -> plan.indexes().add(index.asText()));
+        node.path("Plans").forEach(child -> collect(child, plan));
+    }
+
+    // 0 po ANALYZE pustej tabeli, -1 dla partycji, do której nigdy nic nie trafiło
+    private long rows(String relation) {
+        return jdbcTemplate.queryForObject("SELECT reltuples::bigint FROM pg_class WHERE relname = ?",
+                Long.class, relation);
+    }
+
+    // Indeks partycji -> indeks tabeli partycjonowanej, z którego powstał
+    private String rootIndex(String index) {
+        return jdbcTemplate.queryForObject("SELECT coalesce((SELECT p.relname FROM pg_inherits i " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE i.inhrelid = c.oid), c.relname) " +
+                "FROM pg_class c WHERE c.relname = ?", String.class, index);
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    record QueryPlan(Set<String> relations, Set<String> seqScans, Set<String> indexes) {
+    }
+
+    record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * Owija DataSource tak, żeby zapamiętać SQL i parametry każdego wykonanego PreparedStatement.
+     * Zapytania EXPLAIN wysyłane przez test nie są nagrywane.
+     */
+    static class StatementCapture implements BeanPostProcessor {
+        private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate",
+                "executeLargeUpdate", "addBatch");
+
+        private final List<CapturedStatement> statements = new ArrayList<>();
+        private boolean recording;
+
+        synchronized List<CapturedStatement> record(Runnable query) {
+            statements.clear();
+            recording = true;
+            try {
+                query.run();
+            } finally {
+                recording = false;
+            }
+            return List.copyOf(statements);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, dataSource, (method, args, result) ->
+                        method.getName().equals("getConnection") ? connection((Connection) result) : result);
+            }
+            return bean;
+        }
+
+        private Connection connection(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.getName().equals("prepareStatement")
+                            ? statement((String) args[0], (PreparedStatement) result)
+                            : result);
+        }
+
+        private PreparedStatement statement(String sql, PreparedStatement statement) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                String name = method.getName();
+                if (name.equals("setNull")) {
+                    parameters.put((Integer) args[0], new SqlParameterValue((Integer) args[1], null));
+                } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.put((Integer) args[0], args[1]);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                } else if (EXECUTE.contains(name) && recording) {
+                    statements.add(new CapturedStatement(sql, new ArrayList<>(parameters.values())));
+                }
+                return result;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (_, method, args) -> {
+                try {
+                    return afterCall.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result) throws Exception;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -12,10 +14,17 @@ import zzpj_rent.reservation.controllers.ReservationController;
 import zzpj_rent.reservation.dtos.request.OpinionRequest;
 import zzpj_rent.reservation.dtos.request.ReservationRequest;
 import zzpj_rent.reservation.dtos.request.UpdateReservationRequest;
+import zzpj_rent.reservation.dtos.response.BatchItemResponse;
+import zzpj_rent.reservation.dtos.response.CalendarResponse;
 import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.PageResponse;
+import zzpj_rent.reservation.dtos.response.RatingSummaryResponse;
 import zzpj_rent.reservation.dtos.response.ReservationResponse;
+import zzpj_rent.reservation.exceptions.BatchTooLargeException;
 import zzpj_rent.reservation.exceptions.NoOpinionException;
+import zzpj_rent.reservation.exceptions.NoPropertyException;
 import zzpj_rent.reservation.exceptions.NoReservationException;
+import zzpj_rent.reservation.exceptions.PreconditionFailedException;
 import zzpj_rent.reservation.model.Opinion;
 import zzpj_rent.reservation.model.Reservation;
 import zzpj_rent.reservation.model.User;
@@ -26,7 +35,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -64,6 +77,75 @@ class ReservationControllerTest {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    void reserveBatch_ShouldReturnResultPerItem() throws Exception {
+        // given
+        when(reservationService.createReservations(anyList())).thenReturn(List.of(
+                BatchItemResponse.created(0, 7L),
+                BatchItemResponse.failed(1, new NoPropertyException())));
+
+        // when + then
+        mockMvc.perform(post("/api/rent/create/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        [
+                          {"propertyId": 1, "tenantId": 2},
+                          {"propertyId": 3, "tenantId": 2}
+                        ]
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7L))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void reserveBatch_ShouldReturn400WhenBatchIsTooLarge() throws Exception {
+        when(reservationService.createReservations(anyList())).thenThrow(new BatchTooLargeException(1));
+
+        mockMvc.perform(post("/api/rent/create/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        [
+                          {"propertyId": 1, "tenantId": 2},
+                          {"propertyId": 3, "tenantId": 2}
+                        ]
+                        """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Batch cannot contain more than 1 items"));
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldReturnResultPerId() throws Exception {
+        when(reservationService.updateReservationStatuses(any())).thenReturn(List.of(
+                BatchItemResponse.updated(0, 5L, "Reservation status updated to CONFIRMED"),
+                BatchItemResponse.failed(1, 6L, new NoReservationException())));
+
+        mockMvc.perform(patch("/api/rent/status/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {"ids": [5, 6], "status": "CONFIRMED"}
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(5L))
+                .andExpect(jsonPath("$[0].status").value("OK"))
+                .andExpect(jsonPath("$[1].id").value(6L))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void getRatingSummary_ShouldReturnAggregate() throws Exception {
+        when(reservationService.getRatingSummary(7L)).thenReturn(
+                new RatingSummaryResponse(7L, 3, new BigDecimal("4.33"), List.of(0L, 0L, 0L, 0L, 2L, 1L)));
+
+        mockMvc.perform(get("/api/rent/opinion/7/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.average").value(4.33))
+                .andExpect(jsonPath("$.histogram[4]").value(2));
+    }
+
     @Test
     void getAllReservationsForTenant_WithoutStatus_ShouldReturnList() throws Exception {
         // given
@@ -71,7 +153,7 @@ class ReservationControllerTest {
         resp1.setId(1L);
         List<ReservationResponse> responses = List.of(resp1);
 
-        when(reservationService.getAllReservationsForTenant(99L)).thenReturn(responses);
+        when(reservationService.getAllReservationsForTenant(99L, null, 50)).thenReturn(new PageResponse<>(responses, null));
 
         // when + then
         mockMvc.perform(get("/api/rent/reservations/tenant/all")
@@ -88,8 +170,8 @@ class ReservationControllerTest {
         resp1.setId(1L);
         List<ReservationResponse> responses = List.of(resp1);
 
-        when(reservationService.getReservationsForTenantByStatus(99L, Reservation.Status.CONFIRMED))
-                .thenReturn(responses);
+        when(reservationService.getReservationsForTenantByStatus(99L, Reservation.Status.CONFIRMED, null, 50))
+                .thenReturn(new PageResponse<>(responses, null));
 
         // when + then
         mockMvc.perform(get("/api/rent/reservations/tenant/all")
@@ -100,6 +182,55 @@ class ReservationControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void getAllReservationsForTenant_ShouldPassCursorAndExposeNextCursorHeader() throws Exception {
+        // given
+        ReservationResponse resp1 = new ReservationResponse();
+        resp1.setId(1L);
+
+        when(reservationService.getAllReservationsForTenant(99L, "abc", 1))
+                .thenReturn(new PageResponse<>(List.of(resp1), "next"));
+
+        // when + then
+        mockMvc.perform(get("/api/rent/reservations/tenant/all")
+                        .param("tenantId", "99")
+                        .param("cursor", "abc")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void getBookedDays_ShouldReturnEncodedCalendar() throws Exception {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        when(reservationService.getBookedDays(5L, from, from.plusDays(30)))
+                .thenReturn(new CalendarResponse(5L, from, from.plusDays(30), "Bg=="));
+
+        mockMvc.perform(get("/api/rent/properties/5/calendar")
+                        .param("from", "2030-01-01")
+                        .param("to", "2030-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.propertyId").value(5L))
+                .andExpect(jsonPath("$.from").value("2030-01-01"))
+                .andExpect(jsonPath("$.bookedDays").value("Bg=="));
+    }
+
+    @Test
+    void getAvailableProperties_ShouldReturnFreeSubset() throws Exception {
+        when(reservationService.getAvailableProperties(any())).thenReturn(List.of(1L, 3L));
+
+        mockMvc.perform(post("/api/rent/properties/availability")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"propertyIds": [1, 2, 3], "startDate": "2030-01-01", "endDate": "2030-01-05"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value(1L))
+                .andExpect(jsonPath("$[1]").value(3L));
+    }
+
     @Test
     void getReservationByIdTenant_ShouldReturnReservationResponse() throws Exception {
         Long reservationId = 1L;
@@ -114,16 +245,47 @@ class ReservationControllerTest {
                 LocalDate.now().plusDays(2),
                 Reservation.Status.CONFIRMED.toString(),
                 Reservation.Payment.ONE_TIME.name(),
-                BigDecimal.valueOf(1000)
+                BigDecimal.valueOf(1000),
+                3L
         );
 
         when(reservationService.getReservationByIdForTenant(reservationId, tenantId))
                 .thenReturn(response);
 
-        mockMvc.perform(get("/api/rent/reservations/{id}/tenant/{tenantId}", reservationId, tenantId))
+        String eTag = mockMvc.perform(get("/api/rent/reservations/{id}/tenant/{tenantId}", reservationId, tenantId))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"3-")))
                 .andExpect(jsonPath("$.id").value(reservationId))
-                .andExpect(jsonPath("$.status").value(Reservation.Status.CONFIRMED.name()));
+                .andExpect(jsonPath("$.status").value(Reservation.Status.CONFIRMED.name()))
+                .andExpect(jsonPath("$.version").value(3))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/rent/reservations/{id}/tenant/{tenantId}", reservationId, tenantId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // TenantNameSync zmienia nazwisko bez podbicia wersji - klient nie może dostać 304 ze starymi danymi
+        response.setTenantSurname("Changed");
+        mockMvc.perform(get("/api/rent/reservations/{id}/tenant/{tenantId}", reservationId, tenantId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.tenantSurname").value("Changed"));
+    }
+
+    @Test
+    void getReservationByIdTenant_ShouldExposeETagToCrossOriginClients() throws Exception {
+        ReservationResponse response = new ReservationResponse();
+        response.setId(1L);
+        response.setVersion(0L);
+        when(reservationService.getReservationByIdForTenant(1L, 2L)).thenReturn(response);
+
+        mockMvc.perform(get("/api/rent/reservations/{id}/tenant/{tenantId}", 1L, 2L)
+                        .header(HttpHeaders.ORIGIN, "http://localhost:3000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, containsString(HttpHeaders.ETAG)))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, containsString("X-Next-Cursor")));
     }
 
     @Test
@@ -131,7 +293,7 @@ class ReservationControllerTest {
         Long reservationId = 1L;
         String newStatus = Reservation.Status.CANCELLED.name();
 
-        when(reservationService.updateReservationStatus(reservationId, Reservation.Status.CANCELLED))
+        when(reservationService.updateReservationStatus(reservationId, Reservation.Status.CANCELLED, null))
                 .thenReturn("Status updated successfully");
 
         mockMvc.perform(patch("/api/rent/status/{id}", reservationId)
@@ -140,12 +302,53 @@ class ReservationControllerTest {
                 .andExpect(jsonPath("$.message").value("Status updated successfully"));
     }
 
+    @Test
+    void updateReservationStatus_ShouldPassIfMatchVersionAndMapMismatchTo412() throws Exception {
+        when(reservationService.updateReservationStatus(1L, Reservation.Status.CANCELLED, 2L))
+                .thenThrow(new PreconditionFailedException());
+
+        mockMvc.perform(patch("/api/rent/status/{id}", 1L)
+                        .param("status", Reservation.Status.CANCELLED.name())
+                        .header(HttpHeaders.IF_MATCH, "W/\"2\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Reservation has been modified, fetch it again"));
+    }
+
+    @Test
+    void updateReservationStatus_ShouldTakeVersionFromFullETag() throws Exception {
+        when(reservationService.updateReservationStatus(1L, Reservation.Status.CANCELLED, 4L))
+                .thenReturn("Reservation status updated to CANCELLED");
+
+        mockMvc.perform(patch("/api/rent/status/{id}", 1L)
+                        .param("status", Reservation.Status.CANCELLED.name())
+                        .header(HttpHeaders.IF_MATCH, "\"4-5e1a2b3c\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateReservationStatus_ShouldRejectUnparsableIfMatch() throws Exception {
+        mockMvc.perform(patch("/api/rent/status/{id}", 1L)
+                        .param("status", Reservation.Status.CANCELLED.name())
+                        .header(HttpHeaders.IF_MATCH, "\"abc\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateReservationStatus_ShouldMapConcurrentUpdateToConflict() throws Exception {
+        when(reservationService.updateReservationStatus(1L, Reservation.Status.CANCELLED, null))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Reservation.class, 1L));
+
+        mockMvc.perform(patch("/api/rent/status/{id}", 1L)
+                        .param("status", Reservation.Status.CANCELLED.name()))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void deleteReservation_ShouldReturnSuccessMessage() throws Exception {
         Long reservationId = 1L;
         Long tenantId = 10L;
 
-        when(reservationService.deleteReservation(reservationId, tenantId))
+        when(reservationService.deleteReservation(reservationId, tenantId, null))
                 .thenReturn("Reservation deleted successfully");
 
         mockMvc.perform(delete("/api/rent/delete/{id}/tenant/{tenantId}", reservationId, tenantId))
@@ -174,7 +377,7 @@ class ReservationControllerTest {
                 LocalDate.now().plusDays(5)
         );
 
-        when(reservationService.updateReservation(reservationId, tenantId, request))
+        when(reservationService.updateReservation(reservationId, tenantId, request, null))
                 .thenReturn("Reservation updated successfully");
 
         mockMvc.perform(patch("/api/rent/update/{id}/tenant/{tenantId}", reservationId, tenantId)
@@ -199,12 +402,13 @@ class ReservationControllerTest {
 
         List<ReservationResponse> responses = List.of(
                 new ReservationResponse(1L, 200L, 100L, "Name", "Surname", LocalDate.now(), LocalDate.now().plusDays(2), Reservation.Status.CONFIRMED.toString(), Reservation.Payment.ONE_TIME.name(),
-                        BigDecimal.valueOf(1000)),
+                        BigDecimal.valueOf(1000), 0L),
                 new ReservationResponse(2L, 201L, 100L, "Name", "Surname",  LocalDate.now().minusDays(5), LocalDate.now().minusDays(2), Reservation.Status.CANCELLED.toString(), Reservation.Payment.ONE_TIME.name(),
-                        BigDecimal.valueOf(1000))
+                        BigDecimal.valueOf(1000), 0L)
         );
 
-        when(reservationService.getAllReservationsForOwner(propertyId, ownerId)).thenReturn(responses);
+        when(reservationService.getAllReservationsForOwner(propertyId, ownerId, null, 50))
+                .thenReturn(new PageResponse<>(responses, null));
 
         mockMvc.perform(get("/api/rent/reservations/owner/all")
                         .param("propertyId", propertyId.toString())
@@ -230,7 +434,8 @@ class ReservationControllerTest {
                 LocalDate.now().plusDays(2),
                 Reservation.Status.CONFIRMED.toString(),
                 Reservation.Payment.ONE_TIME.name(),
-                BigDecimal.valueOf(1000)
+                BigDecimal.valueOf(1000),
+                3L
         );
 
         when(reservationService.getReservationByIdForOwner(reservationId, ownerId)).thenReturn(response);
@@ -302,10 +507,14 @@ class ReservationControllerTest {
                 new OpinionResponse(2L, 4, "Dobrze, polecam.", "Name", "Surname")
         );
 
-        when(reservationService.getAllOpinionsByUser(userId)).thenReturn(responses);
+        when(reservationService.getAllOpinionsByUser(userId, "abc", 20))
+                .thenReturn(new PageResponse<>(responses, "next"));
 
-        mockMvc.perform(get("/api/rent/opinion/{userId}", userId))
+        mockMvc.perform(get("/api/rent/opinion/{userId}", userId)
+                        .param("cursor", "abc")
+                        .param("limit", "20"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[1].rating").value(4));
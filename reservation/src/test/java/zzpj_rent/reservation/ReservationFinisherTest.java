@@ -0,0 +1,85 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.config.FinisherProperties;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.services.AvailabilityIndex;
+import zzpj_rent.reservation.services.CalendarCache;
+import zzpj_rent.reservation.services.ReservationFinisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReservationFinisherTest {
+
+    private static final LocalDate DAY = LocalDate.now().minusDays(10);
+
+    private ReservationRepository reservationRepository;
+    private ReservationBatchRepository reservationBatchRepository;
+    private AvailabilityIndex availabilityIndex;
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationFinisher finisher;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository = mock(ReservationRepository.class);
+        reservationBatchRepository = mock(ReservationBatchRepository.class);
+        availabilityIndex = new AvailabilityIndex(reservationRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        CalendarCache calendarCache = new CalendarCache(reservationRepository,
+                new CalendarCacheProperties(100, Duration.ofMinutes(10)), meterRegistry);
+        finisher = new ReservationFinisher(reservationBatchRepository, availabilityIndex, calendarCache,
+                new FinisherProperties(true, Duration.ofMinutes(5), 2, 3), meterRegistry);
+    }
+
+    @Test
+    void shouldFinishInChunksUntilShortChunk() {
+        when(reservationBatchRepository.finishEnded(any(), eq(2)))
+                .thenReturn(List.of(interval(1L), interval(2L)))
+                .thenReturn(List.of(interval(3L)));
+
+        int finished = finisher.finishEnded();
+
+        assertThat(finished).isEqualTo(3);
+        verify(reservationBatchRepository, times(2)).finishEnded(any(), anyInt());
+        assertThat(meterRegistry.counter(ReservationFinisher.FINISHED).count()).isEqualTo(3);
+        assertThat(meterRegistry.timer(ReservationFinisher.CHUNKS).count()).isEqualTo(2);
+        assertThat(meterRegistry.get(ReservationFinisher.LAST_RUN).gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldStopAfterMaxChunksPerRun() {
+        when(reservationBatchRepository.finishEnded(any(), anyInt()))
+                .thenReturn(List.of(interval(1L), interval(2L)));
+
+        int finished = finisher.finishEnded();
+
+        assertThat(finished).isEqualTo(6);
+        verify(reservationBatchRepository, times(3)).finishEnded(any(), anyInt());
+    }
+
+    @Test
+    void shouldFreeFinishedReservationsInIndex() {
+        when(reservationRepository.findAllConfirmedIntervals()).thenReturn(List.of(interval(1L)));
+        availabilityIndex.rebuild();
+        when(reservationBatchRepository.finishEnded(any(), anyInt())).thenReturn(List.of(interval(1L)));
+
+        finisher.finishEnded();
+
+        assertThat(availabilityIndex.isAvailable(7L, DAY, DAY.plusDays(2))).isTrue();
+    }
+
+    private static ReservationInterval interval(Long id) {
+        return new ReservationInterval(id, 7L, DAY, DAY.plusDays(2));
+    }
+}
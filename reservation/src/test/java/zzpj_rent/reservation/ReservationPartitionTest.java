@@ -0,0 +1,210 @@
+package zzpj_rent.reservation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import zzpj_rent.reservation.model.Property;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.model.User;
+import zzpj_rent.reservation.repository.ConfirmedOverlapConstraint;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationInterval;
+import zzpj_rent.reservation.repository.ReservationPartitionRepository;
+import zzpj_rent.reservation.repository.ReservationRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservationBatchRepository.class, ReservationPartitionRepository.class,
+        PropertyAvailabilityRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+class ReservationPartitionTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private ReservationPartitionRepository reservationPartitionRepository;
+
+    @Autowired
+    private PropertyAvailabilityRepository propertyAvailabilityRepository;
+
+    private Property property;
+    private User tenant;
+
+    @BeforeEach
+    void setUp() {
+        property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        tenant = entityManager.persist(User.builder().username("tenant").email("tenant@example.com")
+                .firstName("Jan").lastName("Kowalski").build());
+    }
+
+    @Test
+    void createMonth_ShouldMoveRowsFromDefaultPartition() {
+        Reservation reservation = persistReservation(Reservation.Status.CONFIRMED,
+                LocalDate.of(2031, 5, 10), LocalDate.of(2031, 5, 20));
+        entityManager.flush();
+        assertThat(partitionOf(reservation)).isEqualTo(ReservationPartitionRepository.DEFAULT_PARTITION);
+
+        boolean created = reservationPartitionRepository.createMonth(YearMonth.of(2031, 5));
+
+        assertThat(created).isTrue();
+        assertThat(reservationPartitionRepository.createMonth(YearMonth.of(2031, 5))).isFalse();
+        assertThat(reservationPartitionRepository.findMonths()).contains(YearMonth.of(2031, 5));
+        assertThat(partitionOf(reservation)).isEqualTo("reservations_p2031_05");
+        assertThat(confirmedRanges()).containsExactly(reservation.getId());
+    }
+
+    @Test
+    void confirmedOverlap_ShouldBeRejectedAcrossPartitionBoundary() {
+        reservationPartitionRepository.createMonth(YearMonth.of(2031, 1));
+        reservationPartitionRepository.createMonth(YearMonth.of(2031, 2));
+        persistReservation(Reservation.Status.CONFIRMED, LocalDate.of(2031, 1, 28), LocalDate.of(2031, 2, 5));
+        entityManager.flush();
+
+        Reservation overlapping = reservation(Reservation.Status.CONFIRMED,
+                LocalDate.of(2031, 2, 3), LocalDate.of(2031, 2, 8));
+
+        assertThatThrownBy(() -> reservationRepository.saveAndFlush(overlapping))
+                .isInstanceOfSatisfying(DataIntegrityViolationException.class,
+                        ex -> assertThat(ConfirmedOverlapConstraint.isViolation(ex)).isTrue());
+    }
+
+    @Test
+    void entityUpdate_ShouldMoveRowToPartitionOfNewStartDate() {
+        reservationPartitionRepository.createMonth(YearMonth.of(2031, 1));
+        reservationPartitionRepository.createMonth(YearMonth.of(2031, 3));
+        Reservation reservation = persistReservation(Reservation.Status.PENDING,
+                LocalDate.of(2031, 1, 10), LocalDate.of(2031, 1, 20));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Hibernate szuka wiersza po id i starej start_date (@PartitionKey)
+        Reservation loaded = reservationRepository.findById(reservation.getId()).orElseThrow();
+        loaded.setStartDate(LocalDate.of(2031, 3, 10));
+        loaded.setEndDate(LocalDate.of(2031, 3, 20));
+        loaded.setStatus(Reservation.Status.CONFIRMED);
+        entityManager.flush();
+
+        assertThat(partitionOf(reservation)).isEqualTo("reservations_p2031_03");
+        assertThat(loaded.getVersion()).isEqualTo(1);
+        assertThat(confirmedRanges()).containsExactly(reservation.getId());
+    }
+
+    @Test
+    void finishEnded_ShouldReleaseConfirmedRange() {
+        reservationPartitionRepository.createMonth(YearMonth.of(2031, 1));
+        Reservation reservation = persistReservation(Reservation.Status.CONFIRMED,
+                LocalDate.of(2031, 1, 10), LocalDate.of(2031, 1, 20));
+        entityManager.flush();
+
+        reservationBatchRepository.finishEnded(LocalDate.of(2031, 2, 1), 10);
+
+        assertThat(confirmedRanges()).isEmpty();
+        assertThat(reservationBatchRepository.updateStatuses(List.of(reservation), Reservation.Status.FINISHED,
+                Reservation.Status.CANCELLED)).containsExactly(1);
+    }
+
+    @Test
+    void findFreePropertyIds_ShouldDropPropertiesWithOverlappingConfirmedReservations() {
+        Property pendingOnly = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        Property bookedLater = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        persistReservation(Reservation.Status.CONFIRMED, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 5));
+        persistReservation(pendingOnly, Reservation.Status.PENDING, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 5));
+        persistReservation(bookedLater, Reservation.Status.CONFIRMED, LocalDate.of(2030, 1, 31),
+                LocalDate.of(2030, 2, 4));
+        entityManager.flush();
+
+        List<Long> free = propertyAvailabilityRepository.findFreePropertyIds(
+                List.of(bookedLater.getId(), property.getId(), pendingOnly.getId(), 12345L),
+                LocalDate.of(2030, 1, 3), LocalDate.of(2030, 1, 10));
+
+        assertThat(free).containsExactly(bookedLater.getId(), pendingOnly.getId(), 12345L);
+    }
+
+    @Test
+    void overlapReads_ShouldFindStaysStartedLongerAgoThanAYear() {
+        LocalDate today = LocalDate.now();
+        reservationPartitionRepository.createMonth(YearMonth.from(today.minusYears(2)));
+        Reservation longStay = persistReservation(Reservation.Status.CONFIRMED, today.minusYears(2),
+                today.plusDays(10));
+        entityManager.flush();
+
+        assertThat(reservationRepository.findAllConfirmedIntervals()).extracting(ReservationInterval::id)
+                .contains(longStay.getId());
+        assertThat(reservationRepository.findByPropertyIdAndDateRangeOverlap(property.getId(), today.plusDays(5),
+                today.plusDays(20))).extracting(Reservation::getId).containsExactly(longStay.getId());
+        assertThat(reservationRepository.findConfirmedIntervals(property.getId(), today.plusDays(5),
+                today.plusDays(20))).extracting(ReservationInterval::id).containsExactly(longStay.getId());
+        assertThat(propertyAvailabilityRepository.findFreePropertyIds(List.of(property.getId()), today.plusDays(5),
+                today.plusDays(20))).isEmpty();
+    }
+
+    private String partitionOf(Reservation reservation) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM reservations WHERE id = ?",
+                String.class, reservation.getId());
+    }
+
+    private List<Long> confirmedRanges() {
+        return jdbcTemplate.queryForList("SELECT reservation_id FROM reservation_confirmed_ranges", Long.class);
+    }
+
+    private Reservation persistReservation(Reservation.Status status, LocalDate startDate, LocalDate endDate) {
+        return persistReservation(property, status, startDate, endDate);
+    }
+
+    private Reservation persistReservation(Property property, Reservation.Status status, LocalDate startDate,
+                                           LocalDate endDate) {
+        return entityManager.persist(reservation(property, status, startDate, endDate));
+    }
+
+    private Reservation reservation(Reservation.Status status, LocalDate startDate, LocalDate endDate) {
+        return reservation(property, status, startDate, endDate);
+    }
+
+    private Reservation reservation(Property property, Reservation.Status status, LocalDate startDate,
+                                    LocalDate endDate) {
+        return Reservation.builder()
+                .property(property)
+                .tenant(tenant)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .payment(Reservation.Payment.ONE_TIME)
+                .price(BigDecimal.valueOf(1000))
+                .createdAt(LocalDateTime.of(2030, 1, 1, 12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,301 @@
+package zzpj_rent.reservation;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.ReservationResponse;
+import zzpj_rent.reservation.model.Opinion;
+import zzpj_rent.reservation.model.OutboxEvent;
+import zzpj_rent.reservation.model.Property;
+import zzpj_rent.reservation.model.Reservation;
+import zzpj_rent.reservation.model.User;
+import zzpj_rent.reservation.model.UserRatingSummary;
+import zzpj_rent.reservation.repository.OpinionRepository;
+import zzpj_rent.reservation.repository.OpinionRow;
+import zzpj_rent.reservation.repository.OutboxEventRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationRow;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.repository.UserRatingSummaryRepository;
+import zzpj_rent.reservation.services.ReservationOutbox;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Migracje są pisane pod Postgresa; na H2 schemat tworzy Hibernate. Odczyty dostępności, które korzystają
+// z reservation_confirmed_ranges, sprawdza ReservationPartitionTest
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(ReservationBatchRepository.class)
+class ReservationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OpinionRepository opinionRepository;
+
+    @Autowired
+    private UserRatingSummaryRepository userRatingSummaryRepository;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ReservationViewRepository reservationViewRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void tenantPage_ShouldUseSingleStatementRegardlessOfSize(int count) {
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        User tenant = persistUser("tenant");
+        for (int i = 0; i < count; i++) {
+            persistReservation(property, tenant, Reservation.Status.PENDING, i);
+        }
+        entityManager.flush();
+        reservationViewRepository.insertAllRows();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ReservationResponse> responses = reservationViewRepository.findRowsByTenantId(tenant.getId(), Limit.of(50))
+                .stream().map(ReservationRow::toResponse).toList();
+
+        assertThat(responses).hasSize(count)
+                .allSatisfy(res -> assertThat(res.getTenantName()).isEqualTo("tenant"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void ownerPage_ShouldUseSingleStatementForManyTenants(int count) {
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        for (int i = 0; i < count; i++) {
+            persistReservation(property, persistUser("tenant" + i), Reservation.Status.CONFIRMED, i);
+        }
+        entityManager.flush();
+        reservationViewRepository.insertAllRows();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ReservationResponse> responses = reservationViewRepository.findRowsByPropertyId(property.getId(),
+                        Limit.of(50))
+                .stream().map(ReservationRow::toResponse).toList();
+
+        assertThat(responses).hasSize(count)
+                .extracting(ReservationResponse::getPropertyId).containsOnly(property.getId());
+        assertThat(responses.getFirst().getTenantName()).isEqualTo("tenant" + (count - 1));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void opinionsByUser_ShouldUseSingleStatementRegardlessOfSize(int count) {
+        User user = persistUser("owner");
+        User creator = persistUser("creator");
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(Opinion.builder().content("Opinion " + i).rating(4)
+                    .user(user).creator(creator).createdAt(LocalDateTime.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OpinionResponse> responses = opinionRepository.findRowsByUserId(user.getId(), Limit.of(50))
+                .stream().map(OpinionRow::toResponse).toList();
+
+        assertThat(responses).hasSize(count)
+                .allSatisfy(res -> assertThat(res.getFirstName()).isEqualTo("owner"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateStatuses_ShouldSkipRowsWhoseStatusChangedMeanwhile() {
+        User tenant = persistUser("tenant");
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        Reservation pending = persistReservation(property, tenant, Reservation.Status.PENDING, 0);
+        Reservation rejected = persistReservation(property, tenant, Reservation.Status.REJECTED, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        int[] counts = reservationBatchRepository.updateStatuses(List.of(pending, rejected),
+                Reservation.Status.PENDING, Reservation.Status.CONFIRMED);
+
+        assertThat(counts).containsExactly(1, 0);
+        assertThat(reservationRepository.findById(pending.getId()).orElseThrow().getStatus())
+                .isEqualTo(Reservation.Status.CONFIRMED);
+        assertThat(reservationRepository.findById(rejected.getId()).orElseThrow().getStatus())
+                .isEqualTo(Reservation.Status.REJECTED);
+    }
+
+    @Test
+    void version_ShouldIncrementOnEveryWriteAndRejectStaleCopies() {
+        User tenant = persistUser("tenant");
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        Reservation reservation = persistReservation(property, tenant, Reservation.Status.PENDING, 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        Reservation stale = reservationRepository.findById(reservation.getId()).orElseThrow();
+        entityManager.clear();
+        reservationBatchRepository.updateStatuses(List.of(stale), Reservation.Status.PENDING,
+                Reservation.Status.CONFIRMED);
+        Reservation current = reservationRepository.findById(reservation.getId()).orElseThrow();
+        entityManager.clear();
+
+        assertThat(stale.getVersion()).isZero();
+        assertThat(current.getVersion()).isEqualTo(1);
+        stale.setStatus(Reservation.Status.REJECTED);
+        assertThatThrownBy(() -> reservationRepository.saveAndFlush(stale))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void outbox_ShouldReturnEventsInWriteOrderWithReservationSnapshot() {
+        User tenant = persistUser("tenant");
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        Reservation first = persistReservation(property, tenant, Reservation.Status.PENDING, 0);
+        Reservation second = persistReservation(property, tenant, Reservation.Status.PENDING, 1);
+        ReservationOutbox reservationOutbox = new ReservationOutbox(outboxEventRepository,
+                Jackson2ObjectMapperBuilder.json().build());
+        reservationOutbox.created(second);
+        reservationOutbox.created(first);
+        first.setStatus(Reservation.Status.CONFIRMED);
+        reservationOutbox.statusChanged(first);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OutboxEvent> events = outboxEventRepository.findByOrderByIdAsc(Limit.of(2));
+
+        assertThat(events).extracting(OutboxEvent::getAggregateId).containsExactly(second.getId(), first.getId());
+        assertThat(events.getFirst().getPayload()).isEqualTo("{\"reservationId\":" + second.getId() +
+                ",\"propertyId\":" + property.getId() + ",\"tenantId\":" + tenant.getId() +
+                ",\"status\":\"PENDING\",\"startDate\":\"2030-01-11\",\"endDate\":\"2030-01-15\"," +
+                "\"price\":1000,\"version\":0}");
+
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+        assertThat(outboxEventRepository.findByOrderByIdAsc(Limit.of(10))).singleElement()
+                .extracting(OutboxEvent::getType).isEqualTo(OutboxEvent.Type.STATUS_CHANGED);
+    }
+
+    @Test
+    void reservationView_ShouldFollowRefreshAndDeleteOfReservations() {
+        User tenant = persistUser("tenant");
+        Property property = entityManager.persist(new Property(null, BigDecimal.valueOf(1000), "DAILY", 99L));
+        Reservation kept = persistReservation(property, tenant, Reservation.Status.PENDING, 0);
+        Reservation deleted = persistReservation(property, tenant, Reservation.Status.PENDING, 1);
+        entityManager.flush();
+        reservationViewRepository.refresh(List.of(kept.getId(), deleted.getId()));
+
+        reservationBatchRepository.updateStatuses(List.of(kept), Reservation.Status.PENDING,
+                Reservation.Status.CONFIRMED);
+        reservationViewRepository.refresh(kept.getId());
+        reservationViewRepository.deleteRows(List.of(deleted.getId()));
+
+        assertThat(reservationViewRepository.findRowById(deleted.getId())).isEmpty();
+        ReservationRow row = reservationViewRepository.findRowByIdAndTenantId(kept.getId(), tenant.getId())
+                .orElseThrow();
+        assertThat(row.status()).isEqualTo(Reservation.Status.CONFIRMED);
+        assertThat(row.version()).isEqualTo(1);
+        assertThat(row.tenantName()).isEqualTo("tenant");
+    }
+
+    @Test
+    void insertFromOpinions_ShouldAggregateSumCountAndHistogramPerUser() {
+        User owner = persistUser("owner");
+        User other = persistUser("other");
+        User creator = persistUser("creator");
+        for (int rating : new int[]{5, 4, 4, 0}) {
+            entityManager.persist(Opinion.builder().content("Opinion").rating(rating)
+                    .user(owner).creator(creator).createdAt(LocalDateTime.now()).build());
+        }
+        entityManager.persist(Opinion.builder().content("Opinion").rating(2)
+                .user(other).creator(creator).createdAt(LocalDateTime.now()).build());
+        entityManager.flush();
+
+        userRatingSummaryRepository.deleteAllInBatch();
+        int users = userRatingSummaryRepository.insertFromOpinions();
+
+        assertThat(users).isEqualTo(2);
+        UserRatingSummary summary = userRatingSummaryRepository.findById(owner.getId()).orElseThrow();
+        assertThat(summary.getRatingSum()).isEqualTo(13);
+        assertThat(summary.getRatingCount()).isEqualTo(4);
+        assertThat(List.of(summary.getRating0(), summary.getRating4(), summary.getRating5()))
+                .containsExactly(1L, 2L, 1L);
+    }
+
+    @Test
+    void opinionPages_ShouldWalkNewestFirstWithoutGapsOrDuplicates() {
+        User user = persistUser("owner");
+        User creator = persistUser("creator");
+        LocalDateTime createdAt = LocalDateTime.of(2030, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            // Dwie opinie z tą samą datą sprawdzają rozstrzyganie remisów po id
+            entityManager.persist(Opinion.builder().content("Opinion " + i).rating(4)
+                    .user(user).creator(creator).createdAt(createdAt.plusMinutes(i / 2)).build());
+        }
+        entityManager.flush();
+
+        List<OpinionRow> first = opinionRepository.findRowsByUserId(user.getId(), Limit.of(3));
+        OpinionRow last = first.getLast();
+        List<OpinionRow> rest = opinionRepository.findRowsByUserIdAfter(user.getId(), last.createdAt(), last.id(),
+                Limit.of(10));
+
+        assertThat(first).extracting(OpinionRow::content).containsExactly("Opinion 4", "Opinion 3", "Opinion 2");
+        assertThat(rest).extracting(OpinionRow::content).containsExactly("Opinion 1", "Opinion 0");
+    }
+
+    private User persistUser(String name) {
+        return entityManager.persist(User.builder().username(name).email(name + "@example.com")
+                .firstName(name).lastName("Kowalski").build());
+    }
+
+    private Reservation persistReservation(Property property, User tenant, Reservation.Status status, int offset) {
+        return entityManager.persist(Reservation.builder()
+                .property(property)
+                .tenant(tenant)
+                .status(status)
+                .startDate(LocalDate.of(2030, 1, 1).plusDays(offset * 10L))
+                .endDate(LocalDate.of(2030, 1, 5).plusDays(offset * 10L))
+                .payment(Reservation.Payment.ONE_TIME)
+                .price(BigDecimal.valueOf(1000))
+                .createdAt(LocalDateTime.of(2030, 1, 1, 12, 0).plusMinutes(offset))
+                .build());
+    }
+}
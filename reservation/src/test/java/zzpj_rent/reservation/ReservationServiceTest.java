@@ -1,12 +1,32 @@
 package zzpj_rent.reservation;
 
 import feign.FeignException;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import zzpj_rent.reservation.config.ApartmentBatchProperties;
+import zzpj_rent.reservation.config.BatchProperties;
+import zzpj_rent.reservation.config.CalendarCacheProperties;
+import zzpj_rent.reservation.config.LookupProperties;
+import zzpj_rent.reservation.config.PropertyCacheProperties;
+import zzpj_rent.reservation.config.ResilienceProperties;
+import zzpj_rent.reservation.config.UserCacheProperties;
 import zzpj_rent.reservation.dtos.request.*;
+import zzpj_rent.reservation.dtos.response.BatchItemResponse;
+import zzpj_rent.reservation.dtos.response.CalendarResponse;
 import zzpj_rent.reservation.dtos.response.OpinionResponse;
+import zzpj_rent.reservation.dtos.response.PageResponse;
+import zzpj_rent.reservation.dtos.response.RatingSummaryResponse;
 import zzpj_rent.reservation.dtos.response.ReservationResponse;
 import zzpj_rent.reservation.exceptions.*;
 import zzpj_rent.reservation.microservices.ApartmentClient;
@@ -15,19 +35,45 @@ import zzpj_rent.reservation.model.Opinion;
 import zzpj_rent.reservation.model.Property;
 import zzpj_rent.reservation.model.Reservation;
 import zzpj_rent.reservation.model.User;
+import zzpj_rent.reservation.model.UserRatingSummary;
 import zzpj_rent.reservation.repository.OpinionRepository;
+import zzpj_rent.reservation.repository.OpinionRow;
+import zzpj_rent.reservation.repository.PropertyAvailabilityRepository;
+import zzpj_rent.reservation.repository.ReservationBatchRepository;
+import zzpj_rent.reservation.repository.ReservationInterval;
 import zzpj_rent.reservation.repository.ReservationRepository;
+import zzpj_rent.reservation.repository.ReservationRow;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.repository.UserRatingSummaryRepository;
+import zzpj_rent.reservation.services.ApartmentBatcher;
+import zzpj_rent.reservation.services.AvailabilityIndex;
+import zzpj_rent.reservation.services.CalendarCache;
+import zzpj_rent.reservation.services.ParallelLookups;
+import zzpj_rent.reservation.services.PropertyCache;
+import zzpj_rent.reservation.services.PropertyLocks;
+import zzpj_rent.reservation.services.RemoteCalls;
+import zzpj_rent.reservation.services.ReservationOutbox;
 import zzpj_rent.reservation.services.ReservationService;
+import zzpj_rent.reservation.services.UserCache;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 
@@ -39,6 +85,16 @@ class ReservationServiceTest {
     private ApartmentClient apartmentClient;
     private UserClient userClient;
     private OpinionRepository opinionRepository;
+    private AvailabilityIndex availabilityIndex;
+    private PropertyCache propertyCache;
+    private ReservationBatchRepository reservationBatchRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private CalendarCache calendarCache;
+    private PropertyAvailabilityRepository propertyAvailabilityRepository;
+    private UserRatingSummaryRepository userRatingSummaryRepository;
+    private ReservationOutbox reservationOutbox;
+    private ReservationViewRepository reservationViewRepository;
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setup() {
@@ -46,7 +102,31 @@ class ReservationServiceTest {
         apartmentClient = mock(ApartmentClient.class);
         userClient = mock(UserClient.class);
         opinionRepository = mock(OpinionRepository.class);
-        reservationService = new ReservationService(reservationRepository, opinionRepository, apartmentClient, userClient);
+        reservationBatchRepository = mock(ReservationBatchRepository.class);
+        propertyAvailabilityRepository = mock(PropertyAvailabilityRepository.class);
+        userRatingSummaryRepository = mock(UserRatingSummaryRepository.class);
+        reservationOutbox = mock(ReservationOutbox.class);
+        reservationViewRepository = mock(ReservationViewRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        calendarCache = new CalendarCache(reservationRepository,
+                new CalendarCacheProperties(100, Duration.ofMinutes(10)), meterRegistry);
+        availabilityIndex = new AvailabilityIndex(reservationRepository);
+        RemoteCalls remoteCalls = new RemoteCalls(new ResilienceProperties(50, 50, Duration.ofSeconds(1), 20, 10,
+                Duration.ofSeconds(30), 3, 20, Duration.ZERO), meterRegistry);
+        ApartmentBatcher apartmentBatcher = new ApartmentBatcher(apartmentClient, remoteCalls,
+                new ApartmentBatchProperties(false, 50, Duration.ofMillis(5)), meterRegistry);
+        propertyCache = new PropertyCache(apartmentBatcher,
+                new PropertyCacheProperties(100, Duration.ofMinutes(5), null, Duration.ofHours(24)), meterRegistry);
+        UserCache userCache = new UserCache(userClient,
+                new UserCacheProperties(100, Duration.ofMinutes(5), Duration.ofSeconds(30)), remoteCalls,
+                new SimpleMeterRegistry());
+        reservationService = new ReservationService(reservationRepository, opinionRepository, availabilityIndex,
+                propertyCache, userCache, new ParallelLookups(new LookupProperties(Duration.ofSeconds(5))),
+                reservationBatchRepository, new PropertyLocks(), calendarCache,
+                propertyAvailabilityRepository, userRatingSummaryRepository, meterRegistry, reservationOutbox,
+                new TransactionTemplate(transactionManager), reservationViewRepository,
+                new BatchProperties(10));
     }
 
     @Test
@@ -82,6 +162,8 @@ class ReservationServiceTest {
         assertThat(result.getProperty().getId()).isEqualTo(1L);
         assertThat(result.getTenant().getId()).isEqualTo(2L);
         assertThat(result.getProperty().getOwnerId()).isEqualTo(3L);
+        verify(reservationViewRepository).refresh(result.getId());
+        verify(reservationOutbox).created(result);
     }
 
     @Test
@@ -132,6 +214,8 @@ class ReservationServiceTest {
         request.setStartDate(LocalDate.now().plusDays(1));
         request.setEndDate(LocalDate.now().plusDays(2));
         when(apartmentClient.getApartmentById(anyLong())).thenThrow(FeignException.NotFound.class);
+        // zapytanie o najemcę może zostać anulowane zanim się wykona
+        lenient().when(userClient.getUserById(2L)).thenReturn(new UserDTO());
         assertThatThrownBy(() -> reservationService.createReservation(request))
                 .isInstanceOf(NoPropertyException.class);
     }
@@ -143,12 +227,116 @@ class ReservationServiceTest {
         request.setTenantId(2L);
         request.setStartDate(LocalDate.now().plusDays(1));
         request.setEndDate(LocalDate.now().plusDays(2));
-        when(apartmentClient.getApartmentById(1L)).thenReturn((new ApartmentDTO()));
+        // zapytanie o mieszkanie może zostać anulowane zanim się wykona
+        lenient().when(apartmentClient.getApartmentById(1L)).thenReturn((new ApartmentDTO()));
         when(userClient.getUserById(2L)).thenThrow(FeignException.NotFound.class);
         assertThatThrownBy(() -> reservationService.createReservation(request))
                 .isInstanceOf(NoTenantException.class);
     }
 
+    @Test
+    void shouldFetchPropertyAndTenantConcurrently() {
+        ReservationRequest request = new ReservationRequest(1L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+        ApartmentDTO property = new ApartmentDTO();
+        property.setId(1L);
+        property.setOwnerId(3L);
+        property.setRentalType("MONTHLY");
+        UserDTO tenant = new UserDTO();
+        tenant.setId(2L);
+
+        // każde zapytanie czeka aż drugie też wystartuje - przy wywołaniach po kolei nie doczekałoby się
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(apartmentClient.getApartmentById(1L)).thenAnswer(inv -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+            return property;
+        });
+        when(userClient.getUserById(2L)).thenAnswer(inv -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+            return tenant;
+        });
+        when(reservationRepository.findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any())).thenReturn(List.of());
+        when(reservationRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        Reservation result = reservationService.createReservation(request);
+
+        assertThat(result.getTenant().getId()).isEqualTo(2L);
+        assertThat(result.getProperty().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldCancelTenantLookupWhenPropertyNotFound() throws InterruptedException {
+        ReservationRequest request = new ReservationRequest(1L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        // Mieszkanie nie istnieje, ale odpowiedź przychodzi dopiero po starcie zapytania o najemcę
+        when(apartmentClient.getApartmentById(1L)).thenAnswer(inv -> {
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+            return null;
+        });
+        when(userClient.getUserById(2L)).thenAnswer(inv -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException _) {
+                interrupted.set(true);
+            } finally {
+                finished.countDown();
+            }
+            return new UserDTO();
+        });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isInstanceOf(NoPropertyException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(2_000);
+
+        // Porzucone zapytanie kończy się samo; przerwanie wyglądałoby dla breakera jak awaria serwisu
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted).isFalse();
+    }
+
+    @Test
+    void shouldReportPropertyFailureEvenWhenTenantLookupFailsFirst() {
+        ReservationRequest request = new ReservationRequest(1L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+
+        // Najemca nie istnieje i odpowiedź przychodzi pierwsza; mieszkanie (też nieistniejące) odpowiada później
+        when(userClient.getUserById(2L)).thenThrow(FeignException.NotFound.class);
+        when(apartmentClient.getApartmentById(1L)).thenAnswer(inv -> {
+            then(userClient).should(timeout(2_000)).getUserById(2L);
+            Thread.sleep(100);
+            return null;
+        });
+
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isInstanceOf(NoPropertyException.class);
+    }
+
+    @Test
+    void timedProxy_ShouldTagServiceCallsWithOutcome() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(reservationService);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimedAspect(meterRegistry));
+        ReservationService timed = factory.getProxy();
+
+        when(reservationViewRepository.findRowByIdAndTenantId(1L, 100L)).thenReturn(Optional.empty());
+        when(reservationViewRepository.findRowsByTenantId(eq(100L), any())).thenReturn(List.of());
+
+        assertThatThrownBy(() -> timed.getReservationByIdForTenant(1L, 100L))
+                .isInstanceOf(NoReservationException.class);
+        timed.getAllReservationsForTenant(100L, null, 10);
+
+        assertThat(meterRegistry.get("reservation.service").tag("method", "getReservationByIdForTenant")
+                .tag("exception", "NoReservationException").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("reservation.service").tag("method", "getAllReservationsForTenant")
+                .tag("exception", "none").timer().count()).isEqualTo(1);
+    }
+
     @Test
     void shouldThrowWhenNotAvailable() {
         ReservationRequest request = new ReservationRequest();
@@ -172,6 +360,8 @@ class ReservationServiceTest {
         assertThatThrownBy(() -> reservationService.createReservation(request))
                 .isInstanceOf(InvalidDateRangeException.class)
                 .hasMessageContaining("Property is not available for the selected dates");
+        assertThat(meterRegistry.counter(ReservationService.AVAILABILITY_CONFLICTS, "operation", "create").count())
+                .isEqualTo(1.0);
     }
 
     @Test
@@ -204,12 +394,66 @@ class ReservationServiceTest {
         request.setTenantId(2L);
         request.setStartDate(LocalDate.now().plusDays(1));
         request.setEndDate(LocalDate.now().plusDays(2));
-        when(apartmentClient.getApartmentById(anyLong())).thenThrow(new org.springframework.dao.DataAccessException("db error") {});
+        // zapytanie o mieszkanie może zostać anulowane, gdy pusty najemca zawiedzie pierwszy
+        lenient().when(apartmentClient.getApartmentById(anyLong())).thenThrow(new org.springframework.dao.DataAccessException("db error") {});
         assertThatThrownBy(() -> reservationService.createReservation(request))
                 .isInstanceOf(NotSpecifiedException.class)
                 .hasMessageContaining("An error occurred while creating the reservation");
     }
 
+    @Test
+    void createReservations_ShouldLookUpEachIdOnceAndReportResultPerItem() {
+        // given
+        ApartmentDTO property = new ApartmentDTO();
+        property.setId(1L);
+        property.setOwnerId(3L);
+        property.setRentalType("DAILY");
+        property.setPrice(BigDecimal.valueOf(100));
+        UserDTO tenant = new UserDTO();
+        tenant.setId(2L);
+
+        when(apartmentClient.getApartmentById(1L)).thenReturn(property);
+        when(apartmentClient.getApartmentById(9L)).thenThrow(FeignException.NotFound.class);
+        when(userClient.getUserById(2L)).thenReturn(tenant);
+        when(reservationRepository.findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any())).thenReturn(List.of());
+        doAnswer(inv -> {
+            List<Reservation> reservations = inv.getArgument(0);
+            for (int i = 0; i < reservations.size(); i++) {
+                reservations.get(i).setId(100L + i);
+            }
+            return null;
+        }).when(reservationBatchRepository).insertAll(anyList());
+
+        List<ReservationRequest> requests = List.of(
+                new ReservationRequest(1L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)),
+                new ReservationRequest(9L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)),
+                new ReservationRequest(1L, 2L, LocalDate.now().plusDays(5), LocalDate.now().plusDays(4)),
+                new ReservationRequest(1L, 2L, LocalDate.now().plusDays(10), LocalDate.now().plusDays(11)));
+
+        // when
+        List<BatchItemResponse> results = reservationService.createReservations(requests);
+
+        // then
+        assertThat(results).extracting(BatchItemResponse::getStatus).containsExactly(
+                HttpStatus.CREATED, HttpStatus.NOT_FOUND, HttpStatus.BAD_REQUEST, HttpStatus.CREATED);
+        assertThat(results).extracting(BatchItemResponse::getId).containsExactly(100L, null, null, 101L);
+        assertThat(results.get(2).getMessage()).isEqualTo("Start date cannot be after end date");
+        verify(apartmentClient, times(1)).getApartmentById(1L);
+        verify(userClient, times(1)).getUserById(2L);
+        verify(reservationBatchRepository, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    void createReservations_ShouldRejectBatchLargerThanMaximum() {
+        List<ReservationRequest> requests = Collections.nCopies(11,
+                new ReservationRequest(1L, 2L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3)));
+
+        assertThatThrownBy(() -> reservationService.createReservations(requests))
+                .isInstanceOf(BatchTooLargeException.class)
+                .hasMessageContaining("Batch cannot contain more than 10 items");
+        verifyNoInteractions(apartmentClient, userClient, reservationBatchRepository);
+    }
+
     @Test
     void getAllReservationsForOwner_ShouldReturnReservations() {
         // given
@@ -240,10 +484,11 @@ class ReservationServiceTest {
         reservation.setPrice(BigDecimal.valueOf(1000.0));
 
         given(apartmentClient.getApartmentById(propertyId)).willReturn(property);
-        given(reservationRepository.findByPropertyId(propertyId)).willReturn(List.of(reservation));
+        given(reservationViewRepository.findRowsByPropertyId(eq(propertyId), any())).willReturn(List.of(row(reservation)));
 
         // when
-        List<ReservationResponse> result = reservationService.getAllReservationsForOwner(propertyId, ownerId);
+        List<ReservationResponse> result = reservationService.getAllReservationsForOwner(propertyId, ownerId, null, 50)
+                .getItems();
 
         // then
         assertThat(result).hasSize(1);
@@ -257,6 +502,45 @@ class ReservationServiceTest {
         assertThat(response.getEndDate()).isEqualTo(LocalDate.now().plusDays(7));
     }
 
+    @Test
+    void getAllReservationsForTenant_ShouldReturnNextCursorAndContinueAfterIt() {
+        // given
+        Long tenantId = 10L;
+        User tenant = User.builder().id(tenantId).build();
+        Property property = Property.builder().id(300L).build();
+        LocalDateTime createdAt = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        List<Reservation> rows = List.of(
+                Reservation.builder().id(3L).tenant(tenant).property(property).status(Reservation.Status.PENDING)
+                        .payment(Reservation.Payment.MONTHLY).createdAt(createdAt.plusHours(2)).build(),
+                Reservation.builder().id(2L).tenant(tenant).property(property).status(Reservation.Status.PENDING)
+                        .payment(Reservation.Payment.MONTHLY).createdAt(createdAt).build(),
+                Reservation.builder().id(1L).tenant(tenant).property(property).status(Reservation.Status.PENDING)
+                        .payment(Reservation.Payment.MONTHLY).createdAt(createdAt).build());
+
+        given(reservationViewRepository.findRowsByTenantId(tenantId, Limit.of(3)))
+                .willReturn(rows.stream().map(ReservationServiceTest::row).toList());
+        given(reservationViewRepository.findRowsByTenantIdAfter(tenantId, createdAt, 2L, Limit.of(3)))
+                .willReturn(List.of(row(rows.get(2))));
+
+        // when
+        PageResponse<ReservationResponse> first = reservationService.getAllReservationsForTenant(tenantId, null, 2);
+        PageResponse<ReservationResponse> second =
+                reservationService.getAllReservationsForTenant(tenantId, first.getNextCursor(), 2);
+
+        // then
+        assertThat(first.getItems()).extracting(ReservationResponse::getId).containsExactly(3L, 2L);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getItems()).extracting(ReservationResponse::getId).containsExactly(1L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getAllReservationsForTenant_ShouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> reservationService.getAllReservationsForTenant(10L, "not a cursor", 10))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
     @Test
     void getAllReservationsForOwner_ShouldThrowOwnerException_WhenUserIsNotOwner() {
         Long propertyId = 1L;
@@ -270,7 +554,7 @@ class ReservationServiceTest {
 
         given(apartmentClient.getApartmentById(propertyId)).willReturn(property);
 
-        assertThatThrownBy(() -> reservationService.getAllReservationsForOwner(propertyId, ownerId))
+        assertThatThrownBy(() -> reservationService.getAllReservationsForOwner(propertyId, ownerId, null, 50))
                 .isInstanceOf(OwnerException.class)
                 .hasMessageContaining("You are not the owner of this property");
     }
@@ -282,7 +566,7 @@ class ReservationServiceTest {
 
         when(apartmentClient.getApartmentById(propertyId)).thenThrow(FeignException.NotFound.class);
 
-        assertThatThrownBy(() -> reservationService.getAllReservationsForOwner(propertyId, ownerId))
+        assertThatThrownBy(() -> reservationService.getAllReservationsForOwner(propertyId, ownerId, null, 50))
                 .isInstanceOf(NoPropertyException.class);
     }
 
@@ -313,7 +597,7 @@ class ReservationServiceTest {
         reservation.setPayment(Reservation.Payment.ONE_TIME);
         reservation.setPrice(BigDecimal.valueOf(1000.0));
 
-        given(reservationRepository.findById(reservationId)).willReturn(Optional.of(reservation));
+        given(reservationViewRepository.findRowById(reservationId)).willReturn(Optional.of(row(reservation)));
         given(apartmentClient.getApartmentById(property.getId())).willReturn(property);
 
         // when
@@ -329,12 +613,36 @@ class ReservationServiceTest {
         assertThat(response.getEndDate()).isEqualTo(LocalDate.of(2025, 8, 5));
     }
 
+    @Test
+    void getReservationByIdForOwner_ShouldFallBackToLastKnownPropertyWhenListingServiceIsDown() {
+        Reservation reservation = Reservation.builder().id(1L).status(Reservation.Status.CONFIRMED)
+                .property(new Property(200L, BigDecimal.valueOf(1000), "DAILY", 99L))
+                .tenant(User.builder().id(10L).firstName("Jan").build()).build();
+        ApartmentDTO apartment = new ApartmentDTO();
+        apartment.setId(200L);
+        apartment.setOwnerId(99L);
+        given(reservationViewRepository.findRowById(1L)).willReturn(Optional.of(row(reservation)));
+        given(apartmentClient.getApartmentById(200L))
+                .willReturn(apartment)
+                .willThrow(FeignException.ServiceUnavailable.class);
+
+        reservationService.getReservationByIdForOwner(1L, 99L);
+        propertyCache.invalidate(200L);
+        ReservationResponse response = reservationService.getReservationByIdForOwner(1L, 99L);
+
+        assertThat(response.getId()).isEqualTo(1L);
+        assertThat(meterRegistry.counter(PropertyCache.LAST_KNOWN_SERVED).count()).isEqualTo(1);
+        // zapisy nie korzystają z nieaktualnych danych
+        assertThatThrownBy(() -> reservationService.getProperty(200L))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
     @Test
     void getReservationByIdForOwner_ShouldThrowNoPropertyException_WhenReservationNotFound() {
         Long reservationId = 1L;
         Long ownerId = 99L;
 
-        given(reservationRepository.findById(reservationId)).willReturn(Optional.empty());
+        given(reservationViewRepository.findRowById(reservationId)).willReturn(Optional.empty());
 
         assertThatThrownBy(() -> reservationService.getReservationByIdForOwner(reservationId, ownerId))
                 .isInstanceOf(NoPropertyException.class);
@@ -352,7 +660,7 @@ class ReservationServiceTest {
         reservation.setId(reservationId);
         reservation.setProperty(property);
 
-        given(reservationRepository.findById(reservationId)).willReturn(Optional.of(reservation));
+        given(reservationViewRepository.findRowById(reservationId)).willReturn(Optional.of(row(reservation)));
         when(apartmentClient.getApartmentById(property.getId())).thenThrow(FeignException.NotFound.class);
 
         assertThatThrownBy(() -> reservationService.getReservationByIdForOwner(reservationId, ownerId))
@@ -375,7 +683,7 @@ class ReservationServiceTest {
         reservation.setId(reservationId);
         reservation.setProperty(new Property(property.getId(),  BigDecimal.valueOf(1000.0), "RENTAL_TYPE", propertyOwner.getId()));
 
-        given(reservationRepository.findById(reservationId)).willReturn(Optional.of(reservation));
+        given(reservationViewRepository.findRowById(reservationId)).willReturn(Optional.of(row(reservation)));
         given(apartmentClient.getApartmentById(property.getId())).willReturn(property);
 
         assertThatThrownBy(() -> reservationService.getReservationByIdForOwner(reservationId, ownerId))
@@ -415,11 +723,12 @@ class ReservationServiceTest {
         reservation2.setPayment(Reservation.Payment.ONE_TIME);
         reservation2.setPrice(BigDecimal.valueOf(1000.0));
 
-        given(reservationRepository.findByStatusAndTenantId(Reservation.Status.PENDING, tenantId))
-                .willReturn(List.of(reservation1, reservation2));
+        given(reservationViewRepository.findRowsByTenantIdAndStatus(eq(tenantId), eq(Reservation.Status.PENDING), any()))
+                .willReturn(List.of(row(reservation1), row(reservation2)));
 
         // when
-        List<ReservationResponse> responses = reservationService.getReservationsForTenantByStatus(tenantId, Reservation.Status.PENDING);
+        List<ReservationResponse> responses = reservationService
+                .getReservationsForTenantByStatus(tenantId, Reservation.Status.PENDING, null, 50).getItems();
 
         // then
         assertThat(responses).hasSize(2);
@@ -443,10 +752,13 @@ class ReservationServiceTest {
     void updateReservationStatus_ShouldConfirmPendingReservation() {
         Reservation reservation = new Reservation();
         reservation.setId(1L);
+        reservation.setProperty(Property.builder().id(10L).build());
+        reservation.setStartDate(LocalDate.now().plusDays(1));
+        reservation.setEndDate(LocalDate.now().plusDays(3));
         reservation.setStatus(Reservation.Status.PENDING);
 
         given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
-        given(reservationRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+        given(reservationRepository.saveAndFlush(any())).willAnswer(inv -> inv.getArgument(0));
 
         String result = reservationService.updateReservationStatus(1L, Reservation.Status.CONFIRMED);
 
@@ -454,6 +766,362 @@ class ReservationServiceTest {
         assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.CONFIRMED);
     }
 
+    @Test
+    void updateReservationStatus_ShouldBlockDatesInAvailabilityIndexAfterConfirm() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        Reservation reservation = new Reservation();
+        reservation.setId(1L);
+        reservation.setProperty(Property.builder().id(10L).build());
+        reservation.setStartDate(LocalDate.now().plusDays(1));
+        reservation.setEndDate(LocalDate.now().plusDays(3));
+        reservation.setStatus(Reservation.Status.PENDING);
+
+        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(eq(10L), any(), any())).willAnswer(_ ->
+                reservation.getStatus() == Reservation.Status.CONFIRMED ? List.of(reservation) : List.of());
+
+        reservationService.updateReservationStatus(1L, Reservation.Status.CONFIRMED);
+        assertThat(availabilityIndex.isAvailable(10L, LocalDate.now().plusDays(2), LocalDate.now().plusDays(5))).isFalse();
+
+        reservation.setStatus(Reservation.Status.CONFIRMED);
+        reservationService.updateReservationStatus(1L, Reservation.Status.CANCELLED);
+        assertThat(availabilityIndex.isAvailable(10L, LocalDate.now().plusDays(2), LocalDate.now().plusDays(5))).isTrue();
+
+        // Baza jest pytana tylko przy odmowie
+        then(reservationRepository).should(times(1)).findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any());
+    }
+
+    @Test
+    void createReservation_ShouldUseAvailabilityIndexWhenLoaded() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of(
+                new ReservationInterval(5L, 1L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(4))));
+        availabilityIndex.rebuild();
+
+        ReservationRequest request = new ReservationRequest(1L, 2L, LocalDate.now().plusDays(3), LocalDate.now().plusDays(6));
+        ApartmentDTO property = new ApartmentDTO();
+        property.setId(1L);
+        property.setOwnerId(3L);
+        UserDTO tenant = new UserDTO();
+        tenant.setId(2L);
+
+        when(apartmentClient.getApartmentById(1L)).thenReturn(property);
+        when(userClient.getUserById(2L)).thenReturn(tenant);
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(1L, request.getStartDate(), request.getEndDate()))
+                .willReturn(List.of(Reservation.builder().id(5L).property(Property.builder().id(1L).build())
+                        .startDate(LocalDate.now().plusDays(1)).endDate(LocalDate.now().plusDays(4)).build()));
+
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isInstanceOf(InvalidDateRangeException.class)
+                .hasMessageContaining("Property is not available for the selected dates");
+        then(reservationRepository).should().findByPropertyIdAndDateRangeOverlap(1L, request.getStartDate(),
+                request.getEndDate());
+    }
+
+    @Test
+    void updateReservationStatus_ShouldRejectConfirmingOverlappingReservation() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of(
+                new ReservationInterval(2L, 10L, start.plusDays(2), start.plusDays(5))));
+        availabilityIndex.rebuild();
+
+        Reservation reservation = Reservation.builder().id(1L).property(Property.builder().id(10L).build())
+                .startDate(start).endDate(start.plusDays(3)).status(Reservation.Status.PENDING).build();
+        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(10L, start, start.plusDays(3)))
+                .willReturn(List.of(Reservation.builder().id(2L).property(Property.builder().id(10L).build())
+                        .startDate(start.plusDays(2)).endDate(start.plusDays(5)).build()));
+
+        assertThatThrownBy(() -> reservationService.updateReservationStatus(1L, Reservation.Status.CONFIRMED))
+                .isInstanceOf(InvalidDateRangeException.class)
+                .hasMessageContaining("Property is not available for the selected dates");
+        then(reservationRepository).should(never()).saveAndFlush(any());
+        assertThat(meterRegistry.counter(ReservationService.AVAILABILITY_CONFLICTS, "operation", "confirm").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void updateReservationStatus_ShouldMapExclusionConstraintViolationToInvalidDateRange() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        LocalDate start = LocalDate.now().plusDays(1);
+        Reservation reservation = Reservation.builder().id(1L).property(Property.builder().id(10L).build())
+                .startDate(start).endDate(start.plusDays(3)).status(Reservation.Status.PENDING).build();
+        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.saveAndFlush(reservation)).willThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> reservationService.updateReservationStatus(1L, Reservation.Status.CONFIRMED))
+                .isInstanceOf(InvalidDateRangeException.class);
+        assertThat(availabilityIndex.isAvailable(10L, start, start.plusDays(3))).isTrue();
+        then(reservationOutbox).should(never()).statusChanged(any());
+    }
+
+    @Test
+    void updateReservationStatus_ShouldNeverConfirmOverlappingReservationsUnderConcurrency() throws Exception {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        int count = 4_000;
+        Random random = new Random(42);
+        LocalDate day = LocalDate.now().plusDays(1);
+        Map<Long, Reservation> pending = new HashMap<>();
+        for (long id = 1; id <= count; id++) {
+            LocalDate start = day.plusDays(random.nextInt(365));
+            pending.put(id, Reservation.builder().id(id).property(Property.builder().id(1L + random.nextInt(4)).build())
+                    .startDate(start).endDate(start.plusDays(1 + random.nextInt(7)))
+                    .status(Reservation.Status.PENDING).build());
+        }
+        given(reservationRepository.findById(anyLong()))
+                .willAnswer(inv -> Optional.of(pending.get(inv.<Long>getArgument(0))));
+        // Zapisane potwierdzenia trafiają do "bazy", z której odpowiada zapytanie o kolizje
+        Queue<Reservation> committed = new ConcurrentLinkedQueue<>();
+        given(reservationRepository.saveAndFlush(any())).willAnswer(inv -> {
+            Reservation saved = inv.getArgument(0);
+            if (saved.getStatus() == Reservation.Status.CONFIRMED) {
+                committed.add(saved);
+            }
+            return saved;
+        });
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(anyLong(), any(), any())).willAnswer(inv ->
+                committed.stream()
+                        .filter(r -> r.getProperty().getId().equals(inv.getArgument(0)))
+                        .filter(r -> !r.getStartDate().isAfter(inv.getArgument(2))
+                                && !r.getEndDate().isBefore(inv.getArgument(1)))
+                        .toList());
+
+        Queue<Reservation> confirmed = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (long id = 1; id <= count; id++) {
+                long reservationId = id;
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        reservationService.updateReservationStatus(reservationId, Reservation.Status.CONFIRMED);
+                        confirmed.add(pending.get(reservationId));
+                    } catch (InvalidDateRangeException _) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(confirmed.size() + rejected.get()).isEqualTo(count);
+        assertThat(confirmed).isNotEmpty();
+        assertThat(rejected.get()).isPositive();
+        Map<Long, List<Reservation>> byProperty = new HashMap<>();
+        confirmed.forEach(r -> byProperty.computeIfAbsent(r.getProperty().getId(), _ -> new ArrayList<>()).add(r));
+        byProperty.values().forEach(list -> {
+            list.sort(Comparator.comparing(Reservation::getStartDate));
+            for (int i = 1; i < list.size(); i++) {
+                assertThat(list.get(i).getStartDate()).isAfter(list.get(i - 1).getEndDate());
+            }
+        });
+    }
+
+    @Test
+    void getBookedDays_ShouldEncodeBookedDaysAsBase64Bitset() {
+        LocalDate from = LocalDate.of(2030, 1, 30);
+        given(reservationRepository.findConfirmedIntervals(7L, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 2, 28)))
+                .willReturn(List.of(new ReservationInterval(1L, 7L, LocalDate.of(2030, 1, 31), LocalDate.of(2030, 2, 2))));
+
+        CalendarResponse response = reservationService.getBookedDays(7L, from, from.plusDays(9));
+
+        BitSet booked = BitSet.valueOf(Base64.getDecoder().decode(response.getBookedDays()));
+        assertThat(booked.stream().boxed().toList()).containsExactly(1, 2, 3);
+        assertThat(response.getFrom()).isEqualTo(from);
+    }
+
+    @Test
+    void getBookedDays_ShouldRejectTooLongWindow() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+
+        assertThatThrownBy(() -> reservationService.getBookedDays(7L, from, from.plusDays(366)))
+                .isInstanceOf(InvalidDateRangeException.class);
+        assertThatThrownBy(() -> reservationService.getBookedDays(7L, from, from.minusDays(1)))
+                .isInstanceOf(InvalidDateRangeException.class);
+    }
+
+    @Test
+    void getAvailableProperties_ShouldDeduplicateIdsAndDelegateToSingleQuery() {
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        AvailabilityRequest request = new AvailabilityRequest(Arrays.asList(3L, 1L, null, 3L, 2L), start, start.plusDays(3));
+        given(propertyAvailabilityRepository.findFreePropertyIds(any(), eq(start), eq(start.plusDays(3))))
+                .willReturn(List.of(3L, 2L));
+
+        List<Long> free = reservationService.getAvailableProperties(request);
+
+        assertThat(free).containsExactly(3L, 2L);
+        then(propertyAvailabilityRepository).should().findFreePropertyIds(
+                argThat(ids -> List.copyOf(ids).equals(List.of(3L, 1L, 2L))), eq(start), eq(start.plusDays(3)));
+    }
+
+    @Test
+    void getAvailableProperties_ShouldRejectInvalidRange() {
+        LocalDate start = LocalDate.of(2030, 1, 1);
+
+        assertThatThrownBy(() -> reservationService.getAvailableProperties(
+                new AvailabilityRequest(List.of(1L), start, start.minusDays(1))))
+                .isInstanceOf(InvalidDateRangeException.class);
+        assertThatThrownBy(() -> reservationService.getAvailableProperties(
+                new AvailabilityRequest(List.of(1L), null, start)))
+                .isInstanceOf(InvalidDateRangeException.class);
+        verifyNoInteractions(propertyAvailabilityRepository);
+    }
+
+    @Test
+    void updateReservationStatus_ShouldInvalidateCalendarAfterConfirm() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        LocalDate start = LocalDate.now().plusDays(1);
+        Reservation reservation = Reservation.builder().id(1L).property(Property.builder().id(10L).build())
+                .startDate(start).endDate(start.plusDays(2)).status(Reservation.Status.PENDING).build();
+        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findConfirmedIntervals(eq(10L), any(), any()))
+                .willReturn(List.of())
+                .willReturn(List.of(new ReservationInterval(1L, 10L, start, start.plusDays(2))));
+
+        assertThat(reservationService.getBookedDays(10L, start, start).getBookedDays()).isEmpty();
+        reservationService.updateReservationStatus(1L, Reservation.Status.CONFIRMED);
+
+        assertThat(reservationService.getBookedDays(10L, start, start).getBookedDays()).isNotEmpty();
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldValidateInMemoryAndWriteSingleBatch() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        LocalDate start = LocalDate.now().plusDays(1);
+        Reservation first = pending(1L, 10L, start, start.plusDays(2));
+        Reservation overlapping = pending(2L, 10L, start.plusDays(1), start.plusDays(3));
+        Reservation confirmed = pending(3L, 10L, start.plusDays(20), start.plusDays(22));
+        confirmed.setStatus(Reservation.Status.CONFIRMED);
+        Reservation changedMeanwhile = pending(4L, 11L, start, start.plusDays(2));
+        given(reservationRepository.findAllById(List.of(1L, 2L, 3L, 4L, 99L)))
+                .willReturn(List.of(first, overlapping, confirmed, changedMeanwhile));
+        given(reservationBatchRepository.updateStatuses(List.of(first, changedMeanwhile),
+                Reservation.Status.PENDING, Reservation.Status.CONFIRMED)).willReturn(new int[]{1, 0});
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(eq(10L), any(), any())).willAnswer(_ ->
+                first.getStatus() == Reservation.Status.CONFIRMED ? List.of(first) : List.of());
+
+        List<BatchItemResponse> results = reservationService.updateReservationStatuses(
+                new StatusBatchRequest(List.of(1L, 2L, 3L, 4L, 99L, 1L), Reservation.Status.CONFIRMED));
+
+        assertThat(results).extracting(BatchItemResponse::getStatus).containsExactly(HttpStatus.OK,
+                HttpStatus.BAD_REQUEST, HttpStatus.BAD_REQUEST, HttpStatus.BAD_REQUEST, HttpStatus.NOT_FOUND,
+                HttpStatus.BAD_REQUEST);
+        assertThat(results).extracting(BatchItemResponse::getId).containsExactly(1L, 2L, 3L, 4L, 99L, 1L);
+        assertThat(results.get(1).getMessage()).isEqualTo("Property is not available for the selected dates");
+        assertThat(results.get(3).getMessage()).isEqualTo("Reservation can only be accepted if it is pending");
+        assertThat(first.getStatus()).isEqualTo(Reservation.Status.CONFIRMED);
+        assertThat(changedMeanwhile.getStatus()).isEqualTo(Reservation.Status.PENDING);
+        assertThat(availabilityIndex.isAvailable(10L, start, start)).isFalse();
+        assertThat(availabilityIndex.isAvailable(11L, start, start)).isTrue();
+        assertThat(meterRegistry.counter(ReservationService.AVAILABILITY_CONFLICTS, "operation", "confirm").count())
+                .isEqualTo(1);
+        verify(reservationRepository, never()).saveAndFlush(any());
+        then(reservationViewRepository).should().refresh(List.of(1L));
+        then(reservationOutbox).should().statusesChanged(List.of(first));
+        assertThat(first.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldFreeDatesOfFinishedReservations() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        given(reservationRepository.findAllConfirmedIntervals())
+                .willReturn(List.of(new ReservationInterval(5L, 10L, start, start.plusDays(2))));
+        availabilityIndex.rebuild();
+        Reservation reservation = pending(5L, 10L, start, start.plusDays(2));
+        reservation.setStatus(Reservation.Status.CONFIRMED);
+        given(reservationRepository.findAllById(List.of(5L))).willReturn(List.of(reservation));
+        given(reservationBatchRepository.updateStatuses(List.of(reservation),
+                Reservation.Status.CONFIRMED, Reservation.Status.FINISHED)).willReturn(new int[]{1});
+
+        List<BatchItemResponse> results = reservationService.updateReservationStatuses(
+                new StatusBatchRequest(List.of(5L), Reservation.Status.FINISHED));
+
+        assertThat(results).extracting(BatchItemResponse::getMessage)
+                .containsExactly("Reservation status updated to FINISHED");
+        assertThat(availabilityIndex.isAvailable(10L, start, start.plusDays(2))).isTrue();
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldFailItemsWhenOutboxWriteFails() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        given(reservationRepository.findAllConfirmedIntervals())
+                .willReturn(List.of(new ReservationInterval(5L, 10L, start, start.plusDays(2))));
+        availabilityIndex.rebuild();
+        Reservation reservation = pending(5L, 10L, start, start.plusDays(2));
+        reservation.setStatus(Reservation.Status.CONFIRMED);
+        given(reservationRepository.findAllById(List.of(5L))).willReturn(List.of(reservation));
+        given(reservationBatchRepository.updateStatuses(List.of(reservation),
+                Reservation.Status.CONFIRMED, Reservation.Status.CANCELLED)).willReturn(new int[]{1});
+        willThrow(new DataAccessResourceFailureException("outbox")).given(reservationOutbox).statusesChanged(any());
+        Reservation stillConfirmed = pending(5L, 10L, start, start.plusDays(2));
+        stillConfirmed.setStatus(Reservation.Status.CONFIRMED);
+        given(reservationRepository.findByPropertyIdAndDateRangeOverlap(10L, start, start.plusDays(2)))
+                .willReturn(List.of(stillConfirmed));
+
+        List<BatchItemResponse> results = reservationService.updateReservationStatuses(
+                new StatusBatchRequest(List.of(5L), Reservation.Status.CANCELLED));
+
+        // Zmiana statusu została wycofana razem z zapisem zdarzenia, więc termin nadal jest zajęty
+        assertThat(results).extracting(BatchItemResponse::getStatus).containsExactly(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(availabilityIndex.isAvailable(10L, start, start.plusDays(2))).isFalse();
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldRollBackIndexWhenExclusionConstraintRejectsBatch() {
+        given(reservationRepository.findAllConfirmedIntervals()).willReturn(List.of());
+        availabilityIndex.rebuild();
+
+        LocalDate start = LocalDate.now().plusDays(1);
+        Reservation first = pending(1L, 10L, start, start.plusDays(2));
+        Reservation second = pending(2L, 11L, start, start.plusDays(2));
+        given(reservationRepository.findAllById(List.of(1L, 2L))).willReturn(List.of(first, second));
+        given(reservationBatchRepository.updateStatuses(anyList(), any(), any()))
+                .willThrow(new DataIntegrityViolationException("overlap",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        List<BatchItemResponse> results = reservationService.updateReservationStatuses(
+                new StatusBatchRequest(List.of(1L, 2L), Reservation.Status.CONFIRMED));
+
+        assertThat(results).extracting(BatchItemResponse::getStatus)
+                .containsOnly(HttpStatus.BAD_REQUEST);
+        assertThat(availabilityIndex.isAvailable(10L, start, start)).isTrue();
+        assertThat(availabilityIndex.isAvailable(11L, start, start)).isTrue();
+    }
+
+    @Test
+    void rebuildReservationView_ShouldReplaceAllRowsUnderLock() {
+        given(reservationViewRepository.insertAllRows()).willReturn(42);
+
+        String result = reservationService.rebuildReservationView();
+
+        assertThat(result).isEqualTo("Rebuilt reservation view for 42 reservations");
+        var inOrder = inOrder(reservationViewRepository);
+        inOrder.verify(reservationViewRepository).lockReservations();
+        inOrder.verify(reservationViewRepository).deleteAllInBatch();
+        inOrder.verify(reservationViewRepository).insertAllRows();
+    }
+
+    @Test
+    void updateReservationStatuses_ShouldRejectInvalidTargetStatus() {
+        assertThatThrownBy(() -> reservationService.updateReservationStatuses(
+                new StatusBatchRequest(List.of(1L), Reservation.Status.PENDING)))
+                .isInstanceOf(ReservationStatusException.class)
+                .hasMessage("Invalid reservation status");
+        verifyNoInteractions(reservationBatchRepository);
+    }
+
     @Test
     void updateReservationStatus_ShouldThrowWhenConfirmingNonPending() {
         Reservation reservation = new Reservation();
@@ -472,7 +1140,7 @@ class ReservationServiceTest {
         reservation.setStatus(Reservation.Status.PENDING);
 
         given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
-        given(reservationRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+        given(reservationRepository.saveAndFlush(any())).willAnswer(inv -> inv.getArgument(0));
 
         String result = reservationService.updateReservationStatus(1L, Reservation.Status.REJECTED);
 
@@ -495,10 +1163,14 @@ class ReservationServiceTest {
     @Test
     void updateReservationStatus_ShouldFinishConfirmedReservation() {
         Reservation reservation = new Reservation();
+        reservation.setId(1L);
+        reservation.setProperty(Property.builder().id(10L).build());
+        reservation.setStartDate(LocalDate.now().plusDays(1));
+        reservation.setEndDate(LocalDate.now().plusDays(3));
         reservation.setStatus(Reservation.Status.CONFIRMED);
 
         given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
-        given(reservationRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+        given(reservationRepository.saveAndFlush(any())).willAnswer(inv -> inv.getArgument(0));
 
         String result = reservationService.updateReservationStatus(1L, Reservation.Status.FINISHED);
 
@@ -521,10 +1193,14 @@ class ReservationServiceTest {
     @Test
     void updateReservationStatus_ShouldCancelConfirmedReservation() {
         Reservation reservation = new Reservation();
+        reservation.setId(1L);
+        reservation.setProperty(Property.builder().id(10L).build());
+        reservation.setStartDate(LocalDate.now().plusDays(1));
+        reservation.setEndDate(LocalDate.now().plusDays(3));
         reservation.setStatus(Reservation.Status.CONFIRMED);
 
         given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
-        given(reservationRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+        given(reservationRepository.saveAndFlush(any())).willAnswer(inv -> inv.getArgument(0));
 
         String result = reservationService.updateReservationStatus(1L, Reservation.Status.CANCELLED);
 
@@ -552,6 +1228,29 @@ class ReservationServiceTest {
                 .isInstanceOf(NoReservationException.class);
     }
 
+    @Test
+    void updateReservationStatus_ShouldRejectStaleExpectedVersion() {
+        Reservation reservation = Reservation.builder().id(1L).status(Reservation.Status.PENDING).version(3L).build();
+        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+
+        assertThatThrownBy(() -> reservationService.updateReservationStatus(1L, Reservation.Status.REJECTED, 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.PENDING);
+        then(reservationRepository).should(never()).saveAndFlush(any());
+    }
+
+    @Test
+    void deleteReservation_ShouldDeleteWhenExpectedVersionMatches() {
+        Reservation reservation = Reservation.builder().id(1L).status(Reservation.Status.PENDING).version(3L).build();
+        given(reservationRepository.findByIdAndTenantId(1L, 100L)).willReturn(Optional.of(reservation));
+
+        String result = reservationService.deleteReservation(1L, 100L, 3L);
+
+        assertThat(result).isEqualTo("Reservation deleted successfully");
+        then(reservationRepository).should().delete(reservation);
+    }
+
     @Test
     void deleteReservation_ShouldDeletePendingReservation() {
         Reservation reservation = new Reservation();
@@ -620,7 +1319,7 @@ class ReservationServiceTest {
         String result = reservationService.updateReservation(1L, 100L, request);
 
         assertThat(result).isEqualTo("Reservation updated successfully");
-        then(reservationRepository).should().save(reservation);
+        then(reservationRepository).should().saveAndFlush(reservation);
         assertThat(reservation.getStartDate()).isEqualTo(request.getStartDate());
         assertThat(reservation.getEndDate()).isEqualTo(request.getEndDate());
     }
@@ -670,6 +1369,8 @@ class ReservationServiceTest {
         assertThatThrownBy(() -> reservationService.updateReservation(1L, 100L, request))
                 .isInstanceOf(InvalidDateRangeException.class)
                 .hasMessageContaining("Property is not available for the selected dates");
+        assertThat(meterRegistry.counter(ReservationService.AVAILABILITY_CONFLICTS, "operation", "update").count())
+                .isEqualTo(1.0);
     }
 
     @Test
@@ -743,14 +1444,14 @@ class ReservationServiceTest {
     void shouldReturnEmptyListWhenNoReservationsFound() {
         // given
         Long tenantId = 123L;
-        when(reservationRepository.findByTenantId(tenantId)).thenReturn(List.of());
+        when(reservationViewRepository.findRowsByTenantId(eq(tenantId), any())).thenReturn(List.of());
 
         // when
-        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId);
+        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId, null, 50).getItems();
 
         // then
         assertThat(result).isEmpty();
-        verify(reservationRepository).findByTenantId(tenantId);
+        verify(reservationViewRepository).findRowsByTenantId(eq(tenantId), any());
     }
 
     @Test
@@ -776,10 +1477,10 @@ class ReservationServiceTest {
         reservation.setPayment(Reservation.Payment.ONE_TIME);
         reservation.setPrice(BigDecimal.valueOf(1000.0));
 
-        when(reservationRepository.findByTenantId(tenantId)).thenReturn(List.of(reservation));
+        when(reservationViewRepository.findRowsByTenantId(eq(tenantId), any())).thenReturn(List.of(row(reservation)));
 
         // when
-        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId);
+        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId, null, 50).getItems();
 
         // then
         assertThat(result)
@@ -796,7 +1497,7 @@ class ReservationServiceTest {
                     assertThat(res.getEndDate()).isEqualTo(LocalDate.of(2025, 1, 15));
                 });
 
-        verify(reservationRepository).findByTenantId(tenantId);
+        verify(reservationViewRepository).findRowsByTenantId(eq(tenantId), any());
     }
 
     @Test
@@ -834,10 +1535,10 @@ class ReservationServiceTest {
         res2.setPayment(Reservation.Payment.ONE_TIME);
         res2.setPrice(BigDecimal.valueOf(1000.0));
 
-        when(reservationRepository.findByTenantId(tenantId)).thenReturn(List.of(res1, res2));
+        when(reservationViewRepository.findRowsByTenantId(eq(tenantId), any())).thenReturn(List.of(row(res1), row(res2)));
 
         // when
-        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId);
+        List<ReservationResponse> result = reservationService.getAllReservationsForTenant(tenantId, null, 50).getItems();
 
         // then
         assertThat(result).hasSize(2);
@@ -846,7 +1547,7 @@ class ReservationServiceTest {
         assertThat(result).extracting(ReservationResponse::getStatus)
                 .containsExactlyInAnyOrder("PENDING", "CONFIRMED");
 
-        verify(reservationRepository).findByTenantId(tenantId);
+        verify(reservationViewRepository).findRowsByTenantId(eq(tenantId), any());
     }
 
     @Test
@@ -900,6 +1601,38 @@ class ReservationServiceTest {
         assertThat(opinion.getRating()).isEqualTo(5);
         assertThat(opinion.getUser().getId()).isEqualTo(ownerId); // user to owner
         assertThat(opinion.getCreator().getId()).isEqualTo(tenantId);
+        verify(userRatingSummaryRepository).addRating(ownerId, 5, 1);
+        // Właściciel pobrany z innego serwisu przed otwarciem transakcji, zapis i ocena w jednej transakcji
+        var inOrder = inOrder(userClient, transactionManager, opinionRepository, userRatingSummaryRepository);
+        inOrder.verify(userClient).getUserById(ownerId);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(opinionRepository).save(any(Opinion.class));
+        inOrder.verify(userRatingSummaryRepository).addRating(ownerId, 5, 1);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getRatingSummary_ShouldComputeAverageFromStoredAggregate() {
+        given(userRatingSummaryRepository.findById(7L)).willReturn(Optional.of(UserRatingSummary.builder()
+                .userId(7L).ratingSum(13).ratingCount(3).rating4(2).rating5(1).build()));
+
+        RatingSummaryResponse summary = reservationService.getRatingSummary(7L);
+
+        assertThat(summary.getCount()).isEqualTo(3);
+        assertThat(summary.getAverage()).isEqualByComparingTo("4.33");
+        assertThat(summary.getHistogram()).containsExactly(0L, 0L, 0L, 0L, 2L, 1L);
+        verifyNoInteractions(opinionRepository);
+    }
+
+    @Test
+    void getRatingSummary_ShouldReturnEmptySummaryForUserWithoutOpinions() {
+        given(userRatingSummaryRepository.findById(8L)).willReturn(Optional.empty());
+
+        RatingSummaryResponse summary = reservationService.getRatingSummary(8L);
+
+        assertThat(summary.getUserId()).isEqualTo(8L);
+        assertThat(summary.getCount()).isZero();
+        assertThat(summary.getAverage()).isNull();
     }
 
     @Test
@@ -971,6 +1704,25 @@ class ReservationServiceTest {
                 .isInstanceOf(NoPropertyException.class);
     }
 
+    @Test
+    void testGetProperty_ShouldServeRepeatedLookupsFromCache() {
+        // given
+        ApartmentDTO apartmentDTO = new ApartmentDTO();
+        apartmentDTO.setId(10L);
+        apartmentDTO.setOwnerId(99L);
+        when(apartmentClient.getApartmentById(10L)).thenReturn(apartmentDTO);
+
+        // when
+        reservationService.getProperty(10L);
+        reservationService.getProperty(10L);
+        propertyCache.invalidate(10L);
+        Property property = reservationService.getProperty(10L);
+
+        // then
+        assertThat(property.getOwnerId()).isEqualTo(99L);
+        verify(apartmentClient, times(2)).getApartmentById(10L);
+    }
+
     @Test
     void testGetTenant_ReturnsValidUser() {
         // given
@@ -1008,27 +1760,26 @@ class ReservationServiceTest {
     }
 
     @Test
-    void getAllOpinionsByUser_ShouldReturnMappedOpinionResponses() {
+    void testGetTenant_ShouldCacheNotFoundResponses() {
         // given
-        User user = new User(1L, "john_doe", "john@example.com",
-                "John", "Doe");
-        Opinion opinion1 = Opinion.builder()
-                .id(100L)
-                .content("Super!")
-                .rating(5)
-                .user(user)
-                .build();
-        Opinion opinion2 = Opinion.builder()
-                .id(200L)
-                .content("Średnio...")
-                .rating(3)
-                .user(user)
-                .build();
+        when(userClient.getUserById(404L)).thenThrow(FeignException.NotFound.class);
+
+        // when + then
+        assertThatThrownBy(() -> reservationService.getTenant(404L)).isInstanceOf(NoTenantException.class);
+        assertThatThrownBy(() -> reservationService.getTenant(404L)).isInstanceOf(NoTenantException.class);
+        verify(userClient, times(1)).getUserById(404L);
+    }
 
-        when(opinionRepository.findAllByUser_Id(1L)).thenReturn(List.of(opinion1, opinion2));
+    @Test
+    void getAllOpinionsByUser_ShouldReturnMappedOpinionResponses() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2030, 1, 1, 12, 0);
+        when(opinionRepository.findRowsByUserId(1L, Limit.of(51))).thenReturn(List.of(
+                new OpinionRow(100L, 5, "Super!", "John", "Doe", createdAt),
+                new OpinionRow(200L, 3, "Średnio...", "John", "Doe", createdAt.minusDays(1))));
 
         // when
-        List<OpinionResponse> responses = reservationService.getAllOpinionsByUser(1L);
+        List<OpinionResponse> responses = reservationService.getAllOpinionsByUser(1L, null, 50).getItems();
 
         // then
         assertThat(responses)
@@ -1040,7 +1791,28 @@ class ReservationServiceTest {
                         tuple(200L, "Średnio...", 3, "John", "Doe")
                 );
 
-        verify(opinionRepository).findAllByUser_Id(1L);
+        verify(opinionRepository).findRowsByUserId(1L, Limit.of(51));
+    }
+
+    @Test
+    void getAllOpinionsByUser_ShouldReturnNextCursorAndContinueAfterIt() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2030, 1, 1, 12, 0);
+        given(opinionRepository.findRowsByUserId(1L, Limit.of(3))).willReturn(List.of(
+                new OpinionRow(3L, 5, "C", "John", "Doe", createdAt.plusHours(1)),
+                new OpinionRow(2L, 4, "B", "John", "Doe", createdAt),
+                new OpinionRow(1L, 3, "A", "John", "Doe", createdAt)));
+        given(opinionRepository.findRowsByUserIdAfter(1L, createdAt, 2L, Limit.of(3))).willReturn(List.of(
+                new OpinionRow(1L, 3, "A", "John", "Doe", createdAt)));
+
+        // when
+        PageResponse<OpinionResponse> first = reservationService.getAllOpinionsByUser(1L, null, 2);
+        PageResponse<OpinionResponse> second = reservationService.getAllOpinionsByUser(1L, first.getNextCursor(), 2);
+
+        // then
+        assertThat(first.getItems()).extracting(OpinionResponse::getId).containsExactly(3L, 2L);
+        assertThat(second.getItems()).extracting(OpinionResponse::getId).containsExactly(1L);
+        assertThat(second.getNextCursor()).isNull();
     }
 
     @Test
@@ -1050,7 +1822,9 @@ class ReservationServiceTest {
                 "John", "Doe");
         Opinion opinion = Opinion.builder()
                 .id(100L)
+                .rating(4)
                 .creator(creator)
+                .user(User.builder().id(2L).build())
                 .build();
 
         when(opinionRepository.findById(100L)).thenReturn(Optional.of(opinion));
@@ -1062,6 +1836,7 @@ class ReservationServiceTest {
         // then
         assertThat(result).isEqualTo("Pomyślnie usunięto opinię");
         verify(opinionRepository).delete(opinion);
+        verify(userRatingSummaryRepository).addRating(2L, 4, -1);
     }
 
     @Test
@@ -1095,6 +1870,20 @@ class ReservationServiceTest {
 
         verify(opinionRepository, never()).delete(any());
     }
-}
 
+    private static Reservation pending(Long id, Long propertyId, LocalDate start, LocalDate end) {
+        return Reservation.builder().id(id).property(Property.builder().id(propertyId).build())
+                .startDate(start).endDate(end).status(Reservation.Status.PENDING).build();
+    }
 
+    private static ReservationRow row(Reservation reservation) {
+        return new ReservationRow(reservation.getId(),
+                reservation.getProperty() == null ? null : reservation.getProperty().getId(),
+                reservation.getTenant() == null ? null : reservation.getTenant().getId(),
+                reservation.getTenant() == null ? null : reservation.getTenant().getFirstName(),
+                reservation.getTenant() == null ? null : reservation.getTenant().getLastName(),
+                reservation.getStartDate(), reservation.getEndDate(), reservation.getStatus(),
+                reservation.getPayment(), reservation.getPrice(), reservation.getCreatedAt(),
+                reservation.getVersion());
+    }
+}
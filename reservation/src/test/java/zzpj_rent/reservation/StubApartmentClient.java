@@ -0,0 +1,118 @@
+package zzpj_rent.reservation;
+
+import feign.Request;
+import feign.RetryableException;
+import zzpj_rent.reservation.dtos.request.ApartmentDTO;
+import zzpj_rent.reservation.microservices.ApartmentClient;
+
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lokalny zamiennik Rental-listing-service. Mieszkanie istnieje dla każdego ID spoza {@code missing},
+ * a wywołania mogą czekać na {@link #release()}, żeby testy zdążyły zebrać równoległe zapytania.
+ * Dla ID z {@link #failOn} pojedyncze zapytanie rzuca podany wyjątek.
+ */
+class StubApartmentClient implements ApartmentClient {
+    static final long OWNER_ID = 99L;
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "/api/apartments", Map.of(),
+            null, StandardCharsets.UTF_8, null);
+
+    private final Set<Long> missing;
+    private final CountDownLatch released;
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final List<List<Long>> batchCalls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Map<Long, Throwable> failures = new ConcurrentHashMap<>();
+    private volatile Duration delay = Duration.ZERO;
+
+    StubApartmentClient(Set<Long> missing, boolean blocked) {
+        this.missing = missing;
+        this.released = new CountDownLatch(blocked ? 1 : 0);
+    }
+
+    @Override
+    public ApartmentDTO getApartmentById(Long id) {
+        singleCalls.incrementAndGet();
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            awaitRelease();
+            Thread.sleep(delay);
+            Throwable failure = failures.get(id);
+            if (failure instanceof RuntimeException ex) {
+                throw ex;
+            }
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            return missing.contains(id) ? null : apartment(id);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    @Override
+    public List<ApartmentDTO> getApartmentsByIds(List<Long> ids) {
+        batchCalls.add(List.copyOf(ids));
+        awaitRelease();
+        return ids.stream().filter(id -> !missing.contains(id)).map(StubApartmentClient::apartment).toList();
+    }
+
+    void release() {
+        released.countDown();
+    }
+
+    void delay(Duration delay) {
+        this.delay = delay;
+    }
+
+    void failOn(Long id, Throwable failure) {
+        failures.put(id, failure);
+    }
+
+    int maxConcurrentSingleCalls() {
+        return maxRunning.get();
+    }
+
+    int singleCalls() {
+        return singleCalls.get();
+    }
+
+    List<List<Long>> batchCalls() {
+        return batchCalls;
+    }
+
+    static ApartmentDTO apartment(Long id) {
+        ApartmentDTO apartment = new ApartmentDTO();
+        apartment.setId(id);
+        apartment.setPrice(BigDecimal.valueOf(250));
+        apartment.setRentalType("DAILY");
+        apartment.setOwnerId(OWNER_ID);
+        return apartment;
+    }
+
+    // Przerwany odczyt z gniazda Feign zgłasza jako RetryableException
+    private void awaitRelease() {
+        try {
+            released.await();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            throw new RetryableException(-1, "Read interrupted", Request.HttpMethod.GET,
+                    new InterruptedIOException(), (Long) null, REQUEST);
+        }
+    }
+}
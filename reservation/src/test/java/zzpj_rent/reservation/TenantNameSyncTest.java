@@ -0,0 +1,53 @@
+package zzpj_rent.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import zzpj_rent.reservation.config.ViewNamesProperties;
+import zzpj_rent.reservation.repository.ReservationViewRepository;
+import zzpj_rent.reservation.services.TenantNameSync;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class TenantNameSyncTest {
+
+    private ReservationViewRepository reservationViewRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TenantNameSync sync;
+
+    @BeforeEach
+    void setup() {
+        reservationViewRepository = mock(ReservationViewRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        sync = new TenantNameSync(reservationViewRepository,
+                new ViewNamesProperties(true, Duration.ofMinutes(10), 100), meterRegistry);
+    }
+
+    @Test
+    void shouldRefreshEveryChunkUpToLastId() {
+        when(reservationViewRepository.findMaxId()).thenReturn(Optional.of(250L));
+        when(reservationViewRepository.refreshTenantNames(anyLong(), anyLong())).thenReturn(2, 0, 1);
+
+        int updated = sync.refreshNames();
+
+        assertThat(updated).isEqualTo(3);
+        verify(reservationViewRepository).refreshTenantNames(0, 100);
+        verify(reservationViewRepository).refreshTenantNames(100, 200);
+        verify(reservationViewRepository).refreshTenantNames(200, 300);
+        verify(reservationViewRepository, times(3)).refreshTenantNames(anyLong(), anyLong());
+        assertThat(meterRegistry.counter(TenantNameSync.UPDATED).count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipEmptyView() {
+        when(reservationViewRepository.findMaxId()).thenReturn(Optional.empty());
+
+        assertThat(sync.refreshNames()).isZero();
+        verify(reservationViewRepository, never()).refreshTenantNames(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,10 @@
+-- Schemat, który Hibernate (ddl-auto) zakładał z encji sprzed wprowadzenia migracji Flyway; bazy produkcyjne
+-- mają właśnie taki. Na nim BaselineMigrationTest sprawdza migracje od V2 wzwyż.
+create table apartment (price numeric(38,2), id bigint generated by default as identity, owner_id bigint, rental_type varchar(255), primary key (id));
+create table opinions (rating integer not null, created_at timestamp(6) not null, creator_id bigint not null, id bigint generated by default as identity, user_id bigint not null, content varchar(255), primary key (id));
+create table reservations (end_date date, price numeric(38,2), start_date date, created_at timestamp(6) not null, id bigint generated by default as identity, property_id bigint not null, tenant_id bigint not null, payment varchar(255) check (payment in ('MONTHLY','ONE_TIME')), status varchar(255) not null check (status in ('PENDING','CONFIRMED','CANCELLED','REJECTED','FINISHED')), primary key (id));
+create table users_entity (id bigint generated by default as identity, email varchar(255), first_name varchar(255), last_name varchar(255), username varchar(255), primary key (id));
+alter table if exists opinions add constraint FKr1xey6rontjwjv5euqvt1iteh foreign key (creator_id) references users_entity;
+alter table if exists opinions add constraint FKsiw3sysu3shy77u756rmhpfod foreign key (user_id) references users_entity;
+alter table if exists reservations add constraint FK2rr5vk6he9194g6dm9jk83k5w foreign key (property_id) references apartment;
+alter table if exists reservations add constraint FKe2t28dgis2i2spy4b09jfs2oc foreign key (tenant_id) references users_entity;